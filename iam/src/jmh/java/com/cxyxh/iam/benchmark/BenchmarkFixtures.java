@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.benchmark;
+
+import com.cxyxh.iam.authn.service.TokenBlacklistService;
+import com.cxyxh.iam.authn.service.impl.JwtKeyServiceImpl;
+import com.cxyxh.iam.authn.service.impl.JwtServiceImpl;
+import com.cxyxh.iam.user.service.PermissionVersionService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试公共夹具：以内存实现替换 Redis 等外部依赖
+ *
+ * @author IAM
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 创建不依赖 Redis 的 JWT 服务（HS512，空黑名单，固定权限版本）
+     *
+     * @param secret            密钥
+     * @param expirationSeconds 访问令牌过期时间（秒）
+     * @return JWT 服务
+     */
+    static JwtServiceImpl jwtService(String secret, long expirationSeconds) {
+        long refreshExpiration = expirationSeconds * 48;
+        return new JwtServiceImpl(new NoopTokenBlacklistService(),
+                new JwtKeyServiceImpl(null, "HS512", 604800, refreshExpiration, null),
+                new FixedPermissionVersionService(), username -> null,
+                secret, expirationSeconds, refreshExpiration, 10_000, false);
+    }
+
+    /**
+     * 空黑名单
+     */
+    private static class NoopTokenBlacklistService implements TokenBlacklistService {
+
+        @Override
+        public boolean isRevoked(String key) {
+            return false;
+        }
+
+        @Override
+        public void revoke(String key, long timeout, TimeUnit unit) {
+        }
+
+        @Override
+        public boolean revokeOnce(String key, long timeout, TimeUnit unit) {
+            return true;
+        }
+
+        @Override
+        public void evict(String key) {
+        }
+    }
+
+    /**
+     * 固定版本号的权限版本服务
+     */
+    private static class FixedPermissionVersionService implements PermissionVersionService {
+
+        @Override
+        public long getVersion(Long userId) {
+            return 0;
+        }
+
+        @Override
+        public void increaseVersion(Long userId) {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.benchmark;
+
+import com.cxyxh.iam.authn.captcha.AwtCaptchaRenderer;
+import com.cxyxh.iam.authn.captcha.GlyphAtlasCaptchaRenderer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 验证码渲染基准测试
+ * <p>
+ * awt 为每次创建 Graphics2D、旋转画布并经 ImageIO 编码 RGB 图片的旧实现，atlas 为字形图集加索引色 PNG 的实现。
+ * 单次耗时看 Score，内存分配看 gc.alloc.rate.norm，响应大小看辅助计数 bytes（每次操作的 data URI 字符数）。
+ *
+ * @author IAM
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CaptchaRendererBenchmark {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 60;
+    private static final String CODE = "K7pX";
+
+    private AwtCaptchaRenderer awtRenderer;
+    private GlyphAtlasCaptchaRenderer atlasRenderer;
+
+    @Setup
+    public void setUp() {
+        awtRenderer = new AwtCaptchaRenderer(WIDTH, HEIGHT);
+        atlasRenderer = new GlyphAtlasCaptchaRenderer(WIDTH, HEIGHT);
+        // 图集在首次渲染时构建，不计入测量
+        atlasRenderer.render(CODE);
+    }
+
+    /**
+     * 每次操作输出的字符数
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class OutputSize {
+
+        public long bytes;
+        private long operations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            operations = 0;
+        }
+
+        void record(String dataUri) {
+            operations++;
+            // 以累计平均值记录，报告值即每次操作的字符数
+            bytes = (bytes * (operations - 1) + dataUri.length()) / operations;
+        }
+    }
+
+    @Benchmark
+    public String awt(OutputSize size) {
+        String image = awtRenderer.render(CODE);
+        size.record(image);
+        return image;
+    }
+
+    @Benchmark
+    public String atlas(OutputSize size) {
+        String image = atlasRenderer.render(CODE);
+        size.record(image);
+        return image;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.benchmark;
+
+import com.cxyxh.iam.authn.service.impl.JwtServiceImpl;
+import com.cxyxh.iam.config.security.filter.JwtAuthenticationFilter;
+import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 认证过滤器基准测试
+ * <p>
+ * 使用真实的 JwtServiceImpl 和内存中的用户详情服务，测量每个已认证请求在过滤器中的开销
+ *
+ * @author IAM
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain filterChain;
+
+    @Setup
+    public void setUp() {
+        JwtServiceImpl jwtService = BenchmarkFixtures.jwtService("iam-jwt-secret-key-must-change-in-production", 1800);
+        SecurityUser securityUser = new SecurityUser(1L, "benchmark", "password", true,
+                Arrays.asList("ROLE_ADMIN", "user:list", "user:add", "user:edit", "user:delete", "role:list"));
+        filter = new JwtAuthenticationFilter(jwtService, username -> securityUser);
+
+        String token = jwtService.generateToken("benchmark", 1L).getAccessToken();
+        request = new MockHttpServletRequest("GET", "/user/page");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        filterChain = (req, res) -> {
+        };
+    }
+
+    /**
+     * 携带有效令牌的请求
+     */
+    @Benchmark
+    public Authentication authenticatedRequest() throws Exception {
+        filter.doFilter(request, response, filterChain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
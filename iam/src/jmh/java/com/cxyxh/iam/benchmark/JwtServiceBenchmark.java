@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.benchmark;
+
+import com.cxyxh.iam.authn.dto.JwtTokenDTO;
+import com.cxyxh.iam.authn.service.impl.JwtServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 签发与校验基准测试
+ * <p>
+ * legacy* 方法复现每次调用都重新编码密钥、重建解析器的旧实现，用于与预构建密钥和解析器的实现对比。
+ * 配合 gc 分析器可同时得到吞吐量和每次操作的内存分配（gc.alloc.rate.norm）。
+ *
+ * @author IAM
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "iam-jwt-secret-key-must-change-in-production";
+    private static final long EXPIRATION_SECONDS = 1800;
+
+    private JwtServiceImpl jwtService;
+    private Key signingKey;
+    private JwtParser sharedParser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService(SECRET, EXPIRATION_SECONDS);
+        signingKey = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName());
+        sharedParser = Jwts.parser().setSigningKey(signingKey);
+        token = jwtService.generateToken("benchmark", 1L).getAccessToken();
+    }
+
+    /**
+     * 旧实现：每次签发都重新编码密钥
+     */
+    @Benchmark
+    public String legacyIssue() {
+        return Jwts.builder()
+                .setClaims(accessClaims())
+                .setSubject("benchmark")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_SECONDS * 1000))
+                .signWith(SignatureAlgorithm.HS512, SECRET.getBytes(StandardCharsets.UTF_8))
+                .compact();
+    }
+
+    /**
+     * 新实现：使用预先派生的密钥签发
+     */
+    @Benchmark
+    public String sharedKeyIssue() {
+        return Jwts.builder()
+                .setClaims(accessClaims())
+                .setSubject("benchmark")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_SECONDS * 1000))
+                .signWith(SignatureAlgorithm.HS512, signingKey)
+                .compact();
+    }
+
+    /**
+     * 旧实现：每次校验都重建解析器并重新编码密钥
+     */
+    @Benchmark
+    public Claims legacyValidate() {
+        return Jwts.parser()
+                .setSigningKey(SECRET.getBytes(StandardCharsets.UTF_8))
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    /**
+     * 新实现：复用预构建的解析器校验签名
+     */
+    @Benchmark
+    public Claims sharedParserValidate() {
+        return sharedParser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * 服务完整签发路径（访问令牌 + 刷新令牌）
+     */
+    @Benchmark
+    public JwtTokenDTO serviceIssue() {
+        return jwtService.generateToken("benchmark", 1L);
+    }
+
+    /**
+     * 服务校验路径（声明缓存命中）
+     */
+    @Benchmark
+    public Claims serviceValidate() {
+        return jwtService.parseToken(token);
+    }
+
+    /**
+     * 服务布尔校验路径
+     */
+    @Benchmark
+    public boolean serviceValidateToken() {
+        return jwtService.validateToken(token);
+    }
+
+    private static Map<String, Object> accessClaims() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", "1");
+        claims.put("type", "access");
+        return claims;
+    }
+}
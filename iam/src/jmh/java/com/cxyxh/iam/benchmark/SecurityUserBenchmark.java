@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.benchmark;
+
+import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SecurityUser 权限集合基准测试
+ * <p>
+ * 授权判断会多次调用 getAuthorities 或 hasAuthority，按权限数量分别测量
+ *
+ * @author IAM
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SecurityUserBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int authorityCount;
+
+    private SecurityUser securityUser;
+
+    @Setup
+    public void setUp() {
+        List<String> authorities = new ArrayList<>(authorityCount);
+        authorities.add("ROLE_ADMIN");
+        for (int i = 1; i < authorityCount; i++) {
+            authorities.add("module" + (i % 20) + ":action" + i);
+        }
+        securityUser = new SecurityUser(1L, "benchmark", "password", true, authorities);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return securityUser.getAuthorities();
+    }
+
+    /**
+     * 命中：位图按ID测试
+     */
+    @Benchmark
+    public boolean hasAuthorityHit() {
+        return securityUser.hasAuthority("ROLE_ADMIN");
+    }
+
+    /**
+     * 未命中：字典中不存在的编码直接返回
+     */
+    @Benchmark
+    public boolean hasAuthorityMiss() {
+        return securityUser.hasAuthority("module0:unknown");
+    }
+
+    /**
+     * 对照：线性扫描权限集合
+     */
+    @Benchmark
+    public boolean scanAuthorities() {
+        for (GrantedAuthority authority : securityUser.getAuthorities()) {
+            if ("module0:unknown".equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.benchmark;
+
+import com.cxyxh.iam.user.convert.UserConvert;
+import com.cxyxh.iam.user.entity.User;
+import com.cxyxh.iam.user.vo.UserVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户对象转换基准测试
+ *
+ * @author IAM
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserConvertBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final UserConvert userConvert = UserConvert.INSTANCE;
+    private User user;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        users = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            users.add(new User()
+                    .setId((long) i)
+                    .setUsername("user" + i)
+                    .setNickname("用户" + i)
+                    .setEmail("user" + i + "@example.com")
+                    .setPhone("1380000" + String.format("%04d", i))
+                    .setStatus(1)
+                    .setCreateTime(LocalDateTime.now()));
+        }
+        user = users.get(0);
+    }
+
+    /**
+     * 单个实体转换
+     */
+    @Benchmark
+    public UserVO entityToVO() {
+        return userConvert.entityToVO(user);
+    }
+
+    /**
+     * 一页实体转换
+     */
+    @Benchmark
+    public List<UserVO> entityListToVOList() {
+        return userConvert.entityListToVOList(users);
+    }
+}
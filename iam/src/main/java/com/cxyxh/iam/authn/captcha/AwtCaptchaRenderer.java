@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.captcha;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于 AWT 的 PNG 验证码渲染器
+ * <p>
+ * 每次渲染都创建 Graphics2D 并经 ImageIO 编码 RGB 图片，已由 {@link GlyphAtlasCaptchaRenderer} 取代，
+ * 保留用于基准测试对比
+ *
+ * @author IAM
+ */
+@Slf4j
+public class AwtCaptchaRenderer implements CaptchaRenderer {
+
+    private final int width;
+    private final int height;
+
+    /**
+     * 构造函数
+     *
+     * @param width  图片宽度
+     * @param height 图片高度
+     */
+    public AwtCaptchaRenderer(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public String render(String code) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        
+        // 设置背景
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        
+        // 绘制干扰线
+        g.setColor(Color.LIGHT_GRAY);
+        for (int i = 0; i < 20; i++) {
+            int x1 = random.nextInt(width);
+            int y1 = random.nextInt(height);
+            int x2 = x1 + random.nextInt(20) - 10;
+            int y2 = y1 + random.nextInt(20) - 10;
+            g.drawLine(x1, y1, x2, y2);
+        }
+        
+        // 绘制验证码，字符随机旋转
+        int fontSize = height * 3 / 5;
+        int step = width / (code.length() + 1);
+        int baseline = (height + fontSize) / 2 - fontSize / 8;
+        g.setFont(new Font("Arial", Font.BOLD, fontSize));
+        for (int i = 0; i < code.length(); i++) {
+            int x = step / 2 + i * step;
+            double theta = (random.nextInt(60) - 30) * Math.PI / 180;
+            g.setColor(new Color(random.nextInt(100), random.nextInt(100), random.nextInt(100)));
+            g.rotate(theta, x + fontSize / 4.0, height / 2.0);
+            g.drawString(String.valueOf(code.charAt(i)), x, baseline);
+            g.rotate(-theta, x + fontSize / 4.0, height / 2.0);
+        }
+        
+        g.dispose();
+        
+        // 转换为Base64编码
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", baos);
+            return "data:image/png;base64," + Base64.getEncoder().encodeToString(baos.toByteArray());
+        } catch (Exception e) {
+            log.error("生成验证码图片失败", e);
+            return "";
+        }
+    }
+}
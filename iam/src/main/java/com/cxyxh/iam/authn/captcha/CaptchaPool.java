@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.captcha;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 预渲染验证码池
+ * <p>
+ * 低优先级的后台线程按限定速率渲染验证码并放入有界队列，请求线程只需取出一个；
+ * 池为空时在请求线程上同步渲染。每个验证码只会被取出一次。
+ *
+ * @author IAM
+ */
+@Slf4j
+public class CaptchaPool {
+
+    private static final long STOP_TIMEOUT_MILLIS = 1000;
+
+    private final String name;
+    private final Supplier<CaptchaImage> renderer;
+    private final BlockingQueue<CaptchaImage> queue;
+    private final long refillIntervalNanos;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    private volatile Thread refiller;
+
+    /**
+     * 构造函数
+     *
+     * @param name          池名称，用于线程名和指标标签
+     * @param renderer      验证码渲染器
+     * @param capacity      池容量
+     * @param refillRate    后台每秒最多渲染的验证码数
+     * @param meterRegistry 指标注册表
+     */
+    public CaptchaPool(String name, Supplier<CaptchaImage> renderer, int capacity, int refillRate,
+                       MeterRegistry meterRegistry) {
+        if (capacity <= 0 || refillRate <= 0) {
+            throw new IllegalArgumentException("验证码池容量和补充速率必须为正数");
+        }
+        this.name = name;
+        this.renderer = renderer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.refillIntervalNanos = TimeUnit.SECONDS.toNanos(1) / refillRate;
+
+        Gauge.builder("iam.captcha.pool.size", queue, BlockingQueue::size)
+                .tag("pool", name)
+                .description("验证码池中可用的预渲染验证码数")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("iam.captcha.pool")
+                .tag("pool", name)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("iam.captcha.pool")
+                .tag("pool", name)
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动后台补充线程
+     */
+    public synchronized void start() {
+        if (refiller != null) {
+            return;
+        }
+        Thread thread = new Thread(this::refill, "captcha-pool-" + name);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        refiller = thread;
+        thread.start();
+    }
+
+    /**
+     * 停止后台补充线程，并等待正在进行的渲染结束
+     */
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            thread = refiller;
+            refiller = null;
+        }
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 取出一个验证码，池为空时同步渲染
+     *
+     * @return 验证码
+     */
+    public CaptchaImage take() {
+        CaptchaImage captcha = queue.poll();
+        if (captcha != null) {
+            hitCounter.increment();
+            return captcha;
+        }
+        missCounter.increment();
+        return renderer.get();
+    }
+
+    /**
+     * 当前可用数量
+     *
+     * @return 可用数量
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * 持续渲染并放入队列；队列已满时阻塞，两次渲染之间按补充速率休眠
+     */
+    private void refill() {
+        Thread current = Thread.currentThread();
+        while (refiller == current && !current.isInterrupted()) {
+            try {
+                CaptchaImage captcha = renderer.get();
+                if (captcha != null) {
+                    queue.put(captcha);
+                }
+            } catch (InterruptedException e) {
+                current.interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("验证码池 {} 渲染失败: {}", name, e.getMessage());
+            }
+            LockSupport.parkNanos(refillIntervalNanos);
+        }
+    }
+}
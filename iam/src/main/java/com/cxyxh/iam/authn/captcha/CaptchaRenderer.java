@@ -0,0 +1,30 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.captcha;
+
+/**
+ * 验证码渲染器
+ *
+ * @author IAM
+ */
+public interface CaptchaRenderer {
+
+    /**
+     * 将验证码文本渲染为图片
+     *
+     * @param code 验证码文本
+     * @return 图片 data URI
+     */
+    String render(String code);
+}
@@ -0,0 +1,331 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.captcha;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 字形图集验证码渲染器
+ * <p>
+ * 首次使用时将每个字符按若干旋转角度光栅化一次，量化为 3 级灰度遮罩保存为图集；
+ * 之后每个验证码只在复用的调色板索引缓冲上画干扰线并拷贝字形遮罩，再用
+ * {@link IndexedPngEncoder} 以 4 位索引色编码，不再创建 Graphics2D、旋转画布或走 ImageIO。
+ * <p>
+ * 拷贝字形时按行做随机错切和正弦波形位移、按列做正弦位移，同一字符每次绘制出的像素都不同，
+ * 无法直接用图集遮罩做模板匹配；干扰线使用与文字相同的墨色，不能按颜色过滤。
+ *
+ * @author IAM
+ */
+@Component
+@ConditionalOnProperty(name = "captcha.format", havingValue = "png", matchIfMissing = true)
+public class GlyphAtlasCaptchaRenderer implements CaptchaRenderer {
+
+    /**
+     * 图集覆盖的字符
+     */
+    static final String SUPPORTED_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    /**
+     * 预先光栅化的旋转角度（度）
+     */
+    static final int[] ANGLES = {-30, -25, -20, -15, -10, -5, 0, 5, 10, 15, 20, 25, 30};
+
+    private static final int BACKGROUND = 0;
+    private static final int INK_BASE = 1;
+    private static final int LEVELS = 3;
+
+    /**
+     * 文字颜色，每种颜色占 3 个调色板项（浅、中、实）
+     */
+    private static final int[] INKS = {0x1E3A5F, 0x5A1E1E, 0x1E4D2B, 0x3C2A5A};
+
+    private static final int[] PALETTE = buildPalette();
+
+    private static final String DATA_URI_PREFIX = "data:image/png;base64,";
+
+    private final int width;
+    private final int height;
+    private final int fontSize;
+    private final ThreadLocal<byte[]> canvas;
+
+    /**
+     * 字形图集：字符在 {@link #SUPPORTED_CHARS} 中的位置 x 角度
+     */
+    private volatile Glyph[][] atlas;
+
+    /**
+     * 构造函数
+     *
+     * @param width  图片宽度
+     * @param height 图片高度
+     */
+    public GlyphAtlasCaptchaRenderer(@Value("${captcha.width:120}") int width,
+                                     @Value("${captcha.height:40}") int height) {
+        this.width = width;
+        this.height = height;
+        this.fontSize = height * 3 / 5;
+        this.canvas = ThreadLocal.withInitial(() -> new byte[width * height]);
+    }
+
+    @Override
+    public String render(String code) {
+        return DATA_URI_PREFIX + Base64.getEncoder().encodeToString(renderPng(code));
+    }
+
+    /**
+     * 渲染 PNG 字节
+     *
+     * @param code 验证码文本
+     * @return PNG 字节
+     */
+    byte[] renderPng(String code) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] pixels = canvas.get();
+        Arrays.fill(pixels, (byte) BACKGROUND);
+
+        // 绘制干扰短线
+        for (int i = 0; i < 20; i++) {
+            int x1 = random.nextInt(width);
+            int y1 = random.nextInt(height);
+            drawLine(pixels, x1, y1, x1 + random.nextInt(20) - 10, y1 + random.nextInt(20) - 10, randomInk(random));
+        }
+
+        drawGlyphs(pixels, code);
+
+        // 横穿字符的干扰线
+        for (int i = 0; i < 2; i++) {
+            drawLine(pixels, 0, random.nextInt(height), width - 1, random.nextInt(height), randomInk(random));
+        }
+
+        return IndexedPngEncoder.encode(pixels, width, height, PALETTE);
+    }
+
+    /**
+     * 将字形拷贝到画布，每个字符随机角度、颜色、少量位移和形变
+     *
+     * @param pixels 调色板索引画布
+     * @param code   验证码文本
+     */
+    void drawGlyphs(byte[] pixels, String code) {
+        Glyph[][] glyphs = atlas();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int step = width / (code.length() + 1);
+        for (int i = 0; i < code.length(); i++) {
+            int charIndex = SUPPORTED_CHARS.indexOf(code.charAt(i));
+            if (charIndex < 0) {
+                throw new IllegalArgumentException("验证码包含不支持的字符: " + code.charAt(i));
+            }
+            Glyph glyph = glyphs[charIndex][random.nextInt(ANGLES.length)];
+            int ink = INK_BASE + random.nextInt(INKS.length) * LEVELS;
+            int centerX = step / 2 + i * step + fontSize / 4 + random.nextInt(5) - 2;
+            int centerY = height / 2 + random.nextInt(5) - 2;
+            blit(pixels, glyph, centerX - glyph.width / 2, centerY - glyph.height / 2, ink, random);
+        }
+    }
+
+    /**
+     * 拷贝字形遮罩，同时按行错切、按行和按列做正弦位移
+     * <p>
+     * 相邻行列的位移差不超过 1 像素，笔画不会断开。
+     */
+    private void blit(byte[] pixels, Glyph glyph, int left, int top, int ink, ThreadLocalRandom random) {
+        double shear = random.nextDouble(-0.25, 0.25);
+        double amplitudeX = random.nextDouble(0.5, 1.5);
+        double frequencyX = random.nextDouble(0.15, 0.35);
+        double phaseX = random.nextDouble(Math.PI * 2);
+        double amplitudeY = random.nextDouble(0.5, 1.5);
+        double frequencyY = random.nextDouble(0.15, 0.35);
+        double phaseY = random.nextDouble(Math.PI * 2);
+
+        int[] columnShift = new int[glyph.width];
+        for (int gx = 0; gx < glyph.width; gx++) {
+            columnShift[gx] = (int) Math.round(amplitudeY * Math.sin(phaseY + gx * frequencyY));
+        }
+        for (int gy = 0; gy < glyph.height; gy++) {
+            int rowShift = (int) Math.round(shear * (gy - glyph.height / 2.0)
+                    + amplitudeX * Math.sin(phaseX + gy * frequencyX));
+            int glyphRow = gy * glyph.width;
+            for (int gx = 0; gx < glyph.width; gx++) {
+                int level = glyph.mask[glyphRow + gx];
+                if (level == 0) {
+                    continue;
+                }
+                int x = left + gx + rowShift;
+                int y = top + gy + columnShift[gx];
+                if (x >= 0 && x < width && y >= 0 && y < height) {
+                    pixels[y * width + x] = (byte) (ink + level - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * 随机取一种墨色的实色或抗锯齿边缘色
+     */
+    private static int randomInk(ThreadLocalRandom random) {
+        return INK_BASE + random.nextInt(INKS.length) * LEVELS + random.nextInt(LEVELS);
+    }
+
+    private void drawLine(byte[] pixels, int x0, int y0, int x1, int y1, int color) {
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int err = dx + dy;
+        while (true) {
+            if (x0 >= 0 && x0 < width && y0 >= 0 && y0 < height) {
+                pixels[y0 * width + x0] = (byte) color;
+            }
+            if (x0 == x1 && y0 == y1) {
+                return;
+            }
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                x0 += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y0 += sy;
+            }
+        }
+    }
+
+    private Glyph[][] atlas() {
+        Glyph[][] glyphs = atlas;
+        if (glyphs == null) {
+            synchronized (this) {
+                glyphs = atlas;
+                if (glyphs == null) {
+                    glyphs = buildAtlas();
+                    atlas = glyphs;
+                }
+            }
+        }
+        return glyphs;
+    }
+
+    /**
+     * 用 AWT 将每个字符按每个角度光栅化一次并裁剪到包围盒
+     */
+    private Glyph[][] buildAtlas() {
+        Font font = new Font("Arial", Font.BOLD, fontSize);
+        int cell = fontSize * 2;
+        BufferedImage scratch = new BufferedImage(cell, cell, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] gray = ((DataBufferByte) scratch.getRaster().getDataBuffer()).getData();
+
+        Glyph[][] glyphs = new Glyph[SUPPORTED_CHARS.length()][ANGLES.length];
+        for (int c = 0; c < SUPPORTED_CHARS.length(); c++) {
+            String text = String.valueOf(SUPPORTED_CHARS.charAt(c));
+            for (int a = 0; a < ANGLES.length; a++) {
+                Graphics2D g = scratch.createGraphics();
+                try {
+                    g.setColor(Color.BLACK);
+                    g.fillRect(0, 0, cell, cell);
+                    g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                    g.setFont(font);
+                    g.setColor(Color.WHITE);
+                    FontMetrics metrics = g.getFontMetrics();
+                    g.rotate(Math.toRadians(ANGLES[a]), cell / 2.0, cell / 2.0);
+                    g.drawString(text, (cell - metrics.stringWidth(text)) / 2,
+                            (cell - metrics.getHeight()) / 2 + metrics.getAscent());
+                } finally {
+                    g.dispose();
+                }
+                glyphs[c][a] = Glyph.crop(gray, cell);
+            }
+        }
+        return glyphs;
+    }
+
+    private static int[] buildPalette() {
+        int[] palette = new int[INK_BASE + INKS.length * LEVELS];
+        palette[BACKGROUND] = 0xFFFFFF;
+        for (int i = 0; i < INKS.length; i++) {
+            for (int level = 1; level <= LEVELS; level++) {
+                palette[INK_BASE + i * LEVELS + level - 1] = blend(INKS[i], level / (double) LEVELS);
+            }
+        }
+        return palette;
+    }
+
+    /**
+     * 将文字颜色按覆盖率与白色背景混合，作为抗锯齿边缘的颜色
+     */
+    private static int blend(int rgb, double alpha) {
+        int r = (int) Math.round(((rgb >> 16) & 0xFF) * alpha + 255 * (1 - alpha));
+        int g = (int) Math.round(((rgb >> 8) & 0xFF) * alpha + 255 * (1 - alpha));
+        int b = (int) Math.round((rgb & 0xFF) * alpha + 255 * (1 - alpha));
+        return (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * 裁剪后的字形遮罩，每个像素为 0（透明）到 {@link #LEVELS} 的覆盖等级
+     */
+    private static final class Glyph {
+
+        private final int width;
+        private final int height;
+        private final byte[] mask;
+
+        private Glyph(int width, int height, byte[] mask) {
+            this.width = width;
+            this.height = height;
+            this.mask = mask;
+        }
+
+        static Glyph crop(byte[] gray, int cell) {
+            int minX = cell, minY = cell, maxX = -1, maxY = -1;
+            for (int y = 0; y < cell; y++) {
+                for (int x = 0; x < cell; x++) {
+                    if (level(gray[y * cell + x]) != 0) {
+                        minX = Math.min(minX, x);
+                        maxX = Math.max(maxX, x);
+                        minY = Math.min(minY, y);
+                        maxY = Math.max(maxY, y);
+                    }
+                }
+            }
+            if (maxX < 0) {
+                return new Glyph(0, 0, new byte[0]);
+            }
+            int w = maxX - minX + 1;
+            int h = maxY - minY + 1;
+            byte[] mask = new byte[w * h];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    mask[y * w + x] = (byte) level(gray[(minY + y) * cell + minX + x]);
+                }
+            }
+            return new Glyph(w, h, mask);
+        }
+
+        /**
+         * 灰度量化：低于 1/4 视为透明，其余按 3 级覆盖率
+         */
+        private static int level(byte value) {
+            int v = value & 0xFF;
+            return v < 64 ? 0 : Math.min((v - 64) * LEVELS / 192 + 1, LEVELS);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.captcha;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 索引色 PNG 编码器
+ * <p>
+ * 只输出验证码需要的最小结构：IHDR、PLTE、单个 IDAT 和 IEND。像素按调色板位深紧凑打包，
+ * 所有行使用 None 过滤，压缩使用 BEST_SPEED。每个线程复用一个 Deflater 和行缓冲。
+ *
+ * @author IAM
+ */
+public final class IndexedPngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * 颜色类型：索引色
+     */
+    private static final int COLOR_TYPE_INDEXED = 3;
+
+    private static final ThreadLocal<EncoderState> STATE = ThreadLocal.withInitial(EncoderState::new);
+
+    private IndexedPngEncoder() {
+    }
+
+    /**
+     * 编码索引色图片
+     *
+     * @param pixels  每个像素一个字节的调色板索引，按行存储
+     * @param width   宽度
+     * @param height  高度
+     * @param palette 调色板（0xRRGGBB），最多256色
+     * @return PNG 字节
+     */
+    public static byte[] encode(byte[] pixels, int width, int height, int[] palette) {
+        if (palette.length == 0 || palette.length > 256) {
+            throw new IllegalArgumentException("调色板颜色数必须在 1 到 256 之间");
+        }
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("像素数据长度不足");
+        }
+        int bitDepth = bitDepth(palette.length);
+        EncoderState state = STATE.get();
+
+        // 按位深打包像素，每行前加过滤类型字节 0
+        int rowBytes = (width * bitDepth + 7) / 8;
+        byte[] raw = state.raw(height * (rowBytes + 1));
+        int pixelsPerByte = 8 / bitDepth;
+        int out = 0;
+        for (int y = 0; y < height; y++) {
+            raw[out++] = 0;
+            int rowStart = y * width;
+            for (int x = 0; x < width; x += pixelsPerByte) {
+                int packed = 0;
+                for (int i = 0; i < pixelsPerByte; i++) {
+                    int index = x + i < width ? pixels[rowStart + x + i] & 0xFF : 0;
+                    packed = (packed << bitDepth) | index;
+                }
+                raw[out++] = (byte) packed;
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(out / 2 + 128);
+        png.writeBytes(SIGNATURE);
+
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = (byte) bitDepth;
+        header[9] = COLOR_TYPE_INDEXED;
+        writeChunk(png, state.crc, "IHDR", header, header.length);
+
+        byte[] plte = new byte[palette.length * 3];
+        for (int i = 0; i < palette.length; i++) {
+            plte[i * 3] = (byte) (palette[i] >> 16);
+            plte[i * 3 + 1] = (byte) (palette[i] >> 8);
+            plte[i * 3 + 2] = (byte) palette[i];
+        }
+        writeChunk(png, state.crc, "PLTE", plte, plte.length);
+
+        Deflater deflater = state.deflater;
+        deflater.reset();
+        deflater.setInput(raw, 0, out);
+        deflater.finish();
+        byte[] compressed = state.compressed(out + 64);
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = state.compressed(compressed.length * 2, compressed, length);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        writeChunk(png, state.crc, "IDAT", compressed, length);
+        writeChunk(png, state.crc, "IEND", new byte[0], 0);
+        return png.toByteArray();
+    }
+
+    /**
+     * 调色板颜色数对应的最小位深
+     */
+    static int bitDepth(int colors) {
+        if (colors <= 2) {
+            return 1;
+        }
+        if (colors <= 4) {
+            return 2;
+        }
+        return colors <= 16 ? 4 : 8;
+    }
+
+    private static void writeChunk(ByteArrayOutputStream png, CRC32 crc, String type, byte[] data, int length) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] lengthBytes = new byte[4];
+        putInt(lengthBytes, 0, length);
+        png.writeBytes(lengthBytes);
+        png.writeBytes(typeBytes);
+        png.write(data, 0, length);
+
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        byte[] crcBytes = new byte[4];
+        putInt(crcBytes, 0, (int) crc.getValue());
+        png.writeBytes(crcBytes);
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    /**
+     * 线程内复用的编码状态
+     */
+    private static final class EncoderState {
+
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final CRC32 crc = new CRC32();
+        private byte[] raw = new byte[0];
+        private byte[] compressed = new byte[0];
+
+        byte[] raw(int size) {
+            if (raw.length < size) {
+                raw = new byte[size];
+            }
+            return raw;
+        }
+
+        byte[] compressed(int size) {
+            if (compressed.length < size) {
+                compressed = new byte[size];
+            }
+            return compressed;
+        }
+
+        byte[] compressed(int size, byte[] current, int used) {
+            byte[] grown = new byte[size];
+            System.arraycopy(current, 0, grown, 0, used);
+            compressed = grown;
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.captcha;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * SVG 验证码渲染器
+ * <p>
+ * 每个字符由 4x6 网格上的笔画模板描述，渲染时对模板整体随机缩放、旋转、平移并对每个点加抖动，
+ * 输出为纯字符串拼接的 SVG 路径，不依赖 AWT。字母统一按大写字形绘制，校验本身不区分大小写。
+ * 通过 captcha.format=svg 启用。
+ * <p>
+ * 字符笔画会被拆成独立线段，与同样颜色、同样线宽的诱饵线段和非模板干扰线混在一起随机排序，
+ * 再分散到几条共享路径中，路径结构本身不再暴露字符边界和笔画顺序。
+ * 但 SVG 的坐标始终以明文给出，强度仍低于 PNG 位图验证码，对安全要求高的场景应使用默认的 PNG 格式。
+ *
+ * @author IAM
+ */
+@Component
+@ConditionalOnProperty(name = "captcha.format", havingValue = "svg")
+public class SvgCaptchaRenderer implements CaptchaRenderer {
+
+    private static final String DATA_URI_PREFIX = "data:image/svg+xml;charset=utf-8,";
+
+    /**
+     * 模板网格尺寸
+     */
+    private static final int GRID_WIDTH = 4;
+    private static final int GRID_HEIGHT = 6;
+
+    /**
+     * 字符、诱饵和干扰线共用的墨色
+     */
+    static final String[] INKS = {"#1e3a5f", "#5a1e1e", "#1e4d2b", "#3c2a5a"};
+
+    /**
+     * 所有线段随机分散到的共享路径数
+     */
+    static final int PATH_COUNT = 3;
+
+    /**
+     * 每个字符附近的诱饵线段数
+     */
+    private static final int DECOYS_PER_CHAR = 3;
+
+    /**
+     * 字符 -> 笔画列表，每个笔画为依次相连的网格坐标 x0,y0,x1,y1...
+     */
+    private static final Map<Character, int[][]> GLYPHS = new HashMap<>();
+
+    static {
+        int[] ring = {1, 0, 3, 0, 4, 1, 4, 5, 3, 6, 1, 6, 0, 5, 0, 1, 1, 0};
+        int[] bowl = {0, 6, 0, 0, 3, 0, 4, 1, 4, 2, 3, 3, 0, 3};
+        glyph('0', ring, new int[]{4, 1, 0, 5});
+        glyph('1', new int[]{1, 1, 2, 0, 2, 6}, new int[]{1, 6, 3, 6});
+        glyph('2', new int[]{0, 1, 1, 0, 3, 0, 4, 1, 4, 2, 0, 6, 4, 6});
+        glyph('3', new int[]{0, 0, 4, 0, 2, 2, 3, 2, 4, 3, 4, 5, 3, 6, 1, 6, 0, 5});
+        glyph('4', new int[]{3, 6, 3, 0, 0, 4, 4, 4});
+        glyph('5', new int[]{4, 0, 0, 0, 0, 3, 3, 3, 4, 4, 4, 5, 3, 6, 0, 6});
+        glyph('6', new int[]{4, 0, 1, 0, 0, 1, 0, 5, 1, 6, 3, 6, 4, 5, 4, 4, 3, 3, 0, 3});
+        glyph('7', new int[]{0, 0, 4, 0, 1, 6});
+        glyph('8', new int[]{1, 3, 0, 2, 0, 1, 1, 0, 3, 0, 4, 1, 4, 2, 3, 3, 1, 3, 0, 4, 0, 5, 1, 6, 3, 6, 4, 5, 4, 4, 3, 3});
+        glyph('9', new int[]{4, 3, 1, 3, 0, 2, 0, 1, 1, 0, 3, 0, 4, 1, 4, 5, 3, 6, 0, 6});
+        glyph('A', new int[]{0, 6, 2, 0, 4, 6}, new int[]{1, 4, 3, 4});
+        glyph('B', new int[]{0, 3, 3, 3, 4, 4, 4, 5, 3, 6, 0, 6, 0, 0, 3, 0, 4, 1, 4, 2, 3, 3});
+        glyph('C', new int[]{4, 1, 3, 0, 1, 0, 0, 1, 0, 5, 1, 6, 3, 6, 4, 5});
+        glyph('D', new int[]{0, 0, 3, 0, 4, 1, 4, 5, 3, 6, 0, 6, 0, 0});
+        glyph('E', new int[]{4, 0, 0, 0, 0, 6, 4, 6}, new int[]{0, 3, 3, 3});
+        glyph('F', new int[]{4, 0, 0, 0, 0, 6}, new int[]{0, 3, 3, 3});
+        glyph('G', new int[]{4, 1, 3, 0, 1, 0, 0, 1, 0, 5, 1, 6, 3, 6, 4, 5, 4, 3, 2, 3});
+        glyph('H', new int[]{0, 0, 0, 6}, new int[]{4, 0, 4, 6}, new int[]{0, 3, 4, 3});
+        glyph('I', new int[]{1, 0, 3, 0}, new int[]{2, 0, 2, 6}, new int[]{1, 6, 3, 6});
+        glyph('J', new int[]{4, 0, 4, 5, 3, 6, 1, 6, 0, 5});
+        glyph('K', new int[]{0, 0, 0, 6}, new int[]{4, 0, 0, 4}, new int[]{1, 3, 4, 6});
+        glyph('L', new int[]{0, 0, 0, 6, 4, 6});
+        glyph('M', new int[]{0, 6, 0, 0, 2, 3, 4, 0, 4, 6});
+        glyph('N', new int[]{0, 6, 0, 0, 4, 6, 4, 0});
+        glyph('O', ring);
+        glyph('P', bowl);
+        glyph('Q', ring, new int[]{2, 4, 4, 6});
+        glyph('R', bowl, new int[]{2, 3, 4, 6});
+        glyph('S', new int[]{4, 1, 3, 0, 1, 0, 0, 1, 0, 2, 1, 3, 3, 3, 4, 4, 4, 5, 3, 6, 1, 6, 0, 5});
+        glyph('T', new int[]{0, 0, 4, 0}, new int[]{2, 0, 2, 6});
+        glyph('U', new int[]{0, 0, 0, 5, 1, 6, 3, 6, 4, 5, 4, 0});
+        glyph('V', new int[]{0, 0, 2, 6, 4, 0});
+        glyph('W', new int[]{0, 0, 1, 6, 2, 3, 3, 6, 4, 0});
+        glyph('X', new int[]{0, 0, 4, 6}, new int[]{4, 0, 0, 6});
+        glyph('Y', new int[]{0, 0, 2, 3, 4, 0}, new int[]{2, 3, 2, 6});
+        glyph('Z', new int[]{0, 0, 4, 0, 0, 6, 4, 6});
+    }
+
+    private final int width;
+    private final int height;
+
+    /**
+     * 构造函数
+     *
+     * @param width  图片宽度
+     * @param height 图片高度
+     */
+    public SvgCaptchaRenderer(@Value("${captcha.width:120}") int width,
+                              @Value("${captcha.height:40}") int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public String render(String code) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 每条线段为 x0,y0,x1,y1
+        List<long[]> segments = new ArrayList<>(code.length() * 12);
+
+        double unit = height * 0.55 / GRID_HEIGHT;
+        double step = width / (code.length() + 1.0);
+        for (int i = 0; i < code.length(); i++) {
+            int[][] strokes = GLYPHS.get(Character.toUpperCase(code.charAt(i)));
+            if (strokes == null) {
+                throw new IllegalArgumentException("验证码包含不支持的字符: " + code.charAt(i));
+            }
+            double scale = unit * (0.85 + random.nextDouble() * 0.3);
+            double angle = Math.toRadians(random.nextInt(-25, 26));
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            double centerX = step * (i + 1) + random.nextDouble(-2, 2);
+            double centerY = height / 2.0 + random.nextDouble(-3, 3);
+            double jitter = scale * 0.25;
+
+            // 字符笔画拆成独立线段
+            for (int[] stroke : strokes) {
+                long prevX = 0;
+                long prevY = 0;
+                for (int p = 0; p < stroke.length; p += 2) {
+                    double x = (stroke[p] - GRID_WIDTH / 2.0) * scale + random.nextDouble(-jitter, jitter);
+                    double y = (stroke[p + 1] - GRID_HEIGHT / 2.0) * scale + random.nextDouble(-jitter, jitter);
+                    long px = Math.round(centerX + x * cos - y * sin);
+                    long py = Math.round(centerY + x * sin + y * cos);
+                    if (p > 0) {
+                        addSegment(segments, random, prevX, prevY, px, py);
+                    }
+                    prevX = px;
+                    prevY = py;
+                }
+            }
+
+            // 落在字符区域内、长度与笔画相当的诱饵线段
+            for (int d = 0; d < DECOYS_PER_CHAR; d++) {
+                double x0 = centerX + random.nextDouble(-2.5, 2.5) * scale;
+                double y0 = centerY + random.nextDouble(-3.5, 3.5) * scale;
+                double length = scale * random.nextDouble(1.5, 4);
+                double direction = random.nextDouble(Math.PI * 2);
+                addSegment(segments, random, Math.round(x0), Math.round(y0),
+                        Math.round(x0 + length * Math.cos(direction)), Math.round(y0 + length * Math.sin(direction)));
+            }
+        }
+
+        // 非模板干扰：横穿图片的折线和零散短线
+        for (int i = 0; i < 2; i++) {
+            appendCrossingLine(segments, random);
+        }
+        for (int i = 0; i < code.length(); i++) {
+            long x0 = random.nextInt(width);
+            long y0 = random.nextInt(height);
+            addSegment(segments, random, x0, y0, x0 + random.nextInt(-12, 13), y0 + random.nextInt(-12, 13));
+        }
+
+        // 所有线段打乱后随机分配到共享路径
+        Collections.shuffle(segments, random);
+        StringBuilder[] paths = new StringBuilder[PATH_COUNT];
+        for (int i = 0; i < PATH_COUNT; i++) {
+            paths[i] = new StringBuilder(segments.size() * 16);
+        }
+        for (long[] segment : segments) {
+            paths[random.nextInt(PATH_COUNT)].append('M').append(segment[0]).append(' ').append(segment[1])
+                    .append('L').append(segment[2]).append(' ').append(segment[3]);
+        }
+
+        StringBuilder svg = new StringBuilder(segments.size() * 20 + 512);
+        svg.append("<svg xmlns='http://www.w3.org/2000/svg' width='").append(width)
+                .append("' height='").append(height)
+                .append("' viewBox='0 0 ").append(width).append(' ').append(height).append("'>")
+                .append("<rect width='100%' height='100%' fill='#fff'/>")
+                .append("<g fill='none' stroke-linecap='round' stroke-linejoin='round'>");
+        for (StringBuilder path : paths) {
+            if (path.isEmpty()) {
+                continue;
+            }
+            svg.append("<path d='").append(path)
+                    .append("' stroke='").append(INKS[random.nextInt(INKS.length)])
+                    .append("' stroke-width='").append(2 + random.nextInt(2))
+                    .append("'/>");
+        }
+        svg.append("</g></svg>");
+        return DATA_URI_PREFIX + encode(svg);
+    }
+
+    /**
+     * 模板覆盖的字符（字母按大写）
+     *
+     * @param c 字符
+     * @return 是否支持
+     */
+    static boolean supports(char c) {
+        return GLYPHS.containsKey(Character.toUpperCase(c));
+    }
+
+    /**
+     * 从左到右横穿图片的折线，拆成与字符笔画相同形式的线段
+     */
+    private void appendCrossingLine(List<long[]> segments, ThreadLocalRandom random) {
+        int pieces = 4 + random.nextInt(3);
+        long prevX = 0;
+        long prevY = random.nextInt(height);
+        for (int i = 1; i <= pieces; i++) {
+            long x = Math.round((double) width * i / pieces);
+            long y = random.nextInt(height);
+            addSegment(segments, random, prevX, prevY, x, y);
+            prevX = x;
+            prevY = y;
+        }
+    }
+
+    /**
+     * 以随机方向记录一条线段，避免绘制方向泄露笔画顺序
+     */
+    private static void addSegment(List<long[]> segments, ThreadLocalRandom random,
+                                   long x0, long y0, long x1, long y1) {
+        segments.add(random.nextBoolean() ? new long[]{x0, y0, x1, y1} : new long[]{x1, y1, x0, y0});
+    }
+
+    /**
+     * data URI 中只需转义少数字符，属性统一使用单引号
+     */
+    private static String encode(CharSequence svg) {
+        StringBuilder encoded = new StringBuilder(svg.length() + 64);
+        for (int i = 0; i < svg.length(); i++) {
+            char c = svg.charAt(i);
+            switch (c) {
+                case '<' -> encoded.append("%3C");
+                case '>' -> encoded.append("%3E");
+                case '#' -> encoded.append("%23");
+                case '%' -> encoded.append("%25");
+                default -> encoded.append(c);
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static void glyph(char c, int[]... strokes) {
+        GLYPHS.put(c, strokes);
+    }
+}
@@ -13,6 +13,7 @@
  */
 package com.cxyxh.iam.authn.controller;
 
+import com.cxyxh.iam.authn.dto.ChallengeDTO;
 import com.cxyxh.iam.authn.dto.JwtTokenDTO;
 import com.cxyxh.iam.authn.dto.LoginDTO;
 import com.cxyxh.iam.authn.dto.LoginUserVO;
@@ -21,6 +22,7 @@ import com.cxyxh.iam.common.api.Result;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -50,7 +52,8 @@ public class AuthController {
 
     @Operation(summary = "用户登录")
     @PostMapping("/login")
-    public Result<LoginUserVO> login(@RequestBody @Validated LoginDTO loginDTO) {
+    public Result<LoginUserVO> login(@RequestBody @Validated LoginDTO loginDTO, HttpServletRequest request) {
+        loginDTO.setClientIp(request.getRemoteAddr());
         try {
             LoginUserVO loginUserVO = authService.login(loginDTO);
             return Result.success(loginUserVO, "登录成功");
@@ -86,4 +89,10 @@ public class AuthController {
         Map<String, String> captcha = authService.getCaptcha();
         return Result.success(captcha);
     }
+
+    @Operation(summary = "获取工作量证明挑战")
+    @GetMapping("/challenge")
+    public Result<ChallengeDTO> getChallenge() {
+        return Result.success(authService.getChallenge());
+    }
 } 
\ No newline at end of file
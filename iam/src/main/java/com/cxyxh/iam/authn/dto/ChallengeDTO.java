@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 工作量证明挑战DTO
+ * <p>
+ * 客户端需找到字符串 solution，使 SHA-256(challengeId + ":" + solution) 的前导零比特数不少于 difficulty，
+ * 登录时随 challengeId 一并提交
+ *
+ * @author IAM
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "工作量证明挑战")
+public class ChallengeDTO {
+
+    @Schema(description = "挑战ID，同时作为哈希前缀")
+    private String challengeId;
+
+    @Schema(description = "难度，要求的前导零比特数")
+    private Integer difficulty;
+
+    @Schema(description = "当前登录是否必须携带工作量证明")
+    private Boolean required;
+
+    @Schema(description = "哈希算法，SHA-256")
+    private String algorithm;
+
+    @Schema(description = "过期时间（毫秒时间戳）")
+    private Long expireTime;
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * JWKS 公钥集合DTO（预先序列化）
+ *
+ * @author IAM
+ */
+@Getter
+@AllArgsConstructor
+public class JwksDTO {
+
+    /**
+     * 序列化后的 JWKS 文档
+     */
+    private final byte[] body;
+
+    /**
+     * 文档的实体标签
+     */
+    private final String etag;
+}
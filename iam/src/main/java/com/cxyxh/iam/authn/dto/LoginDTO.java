@@ -13,6 +13,7 @@
  */
 package com.cxyxh.iam.authn.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
@@ -40,4 +41,17 @@ public class LoginDTO {
     
     @Schema(description = "验证码Key")
     private String captchaKey;
+
+    @Schema(description = "工作量证明挑战ID")
+    private String challengeId;
+
+    @Schema(description = "工作量证明的解")
+    private String challengeSolution;
+
+    /**
+     * 客户端IP，由控制器根据请求填充，不接受客户端传入
+     */
+    @JsonIgnore
+    @Schema(hidden = true)
+    private String clientIp;
 } 
\ No newline at end of file
@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.exception;
+
+import lombok.Getter;
+
+/**
+ * 登录限流异常
+ * <p>
+ * 账号或客户端IP在滑动窗口内失败次数过多被锁定时抛出，由全局处理器转换为 429 响应
+ *
+ * @author IAM
+ */
+@Getter
+public class LoginThrottledException extends RuntimeException {
+
+    /**
+     * 距离解除锁定的秒数
+     */
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("登录失败次数过多，请 " + retryAfterSeconds + " 秒后重试");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
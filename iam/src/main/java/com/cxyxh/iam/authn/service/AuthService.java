@@ -13,6 +13,7 @@
  */
 package com.cxyxh.iam.authn.service;
 
+import com.cxyxh.iam.authn.dto.ChallengeDTO;
 import com.cxyxh.iam.authn.dto.JwtTokenDTO;
 import com.cxyxh.iam.authn.dto.LoginDTO;
 import com.cxyxh.iam.authn.dto.LoginUserVO;
@@ -57,6 +58,13 @@ public interface AuthService {
      */
     Map<String, String> getCaptcha();
 
+    /**
+     * 获取工作量证明挑战
+     *
+     * @return 挑战
+     */
+    ChallengeDTO getChallenge();
+
     /**
      * 验证验证码
      *
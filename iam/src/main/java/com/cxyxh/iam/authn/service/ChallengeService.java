@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service;
+
+import com.cxyxh.iam.authn.dto.ChallengeDTO;
+
+/**
+ * 工作量证明挑战服务接口
+ * <p>
+ * 作为图形验证码的低成本替代：服务端只生成随机挑战并做一次哈希校验，计算成本由客户端承担，
+ * 本节点近期登录失败速率达到阈值后登录必须携带工作量证明，难度随失败速率继续升高
+ *
+ * @author IAM
+ */
+public interface ChallengeService {
+
+    /**
+     * 签发挑战
+     *
+     * @return 挑战
+     */
+    ChallengeDTO issueChallenge();
+
+    /**
+     * 校验并消费挑战，每个挑战只能使用一次
+     *
+     * @param challengeId 挑战ID
+     * @param solution    客户端找到的解
+     * @return 是否通过
+     */
+    boolean verify(String challengeId, String solution);
+
+    /**
+     * 记录一次登录失败，用于调整难度
+     */
+    void recordFailedLogin();
+
+    /**
+     * 登录当前是否必须携带工作量证明
+     *
+     * @return 统计窗口内登录失败数达到阈值时为true
+     */
+    boolean isRequired();
+
+    /**
+     * 当前难度
+     *
+     * @return 要求的前导零比特数
+     */
+    int getDifficulty();
+}
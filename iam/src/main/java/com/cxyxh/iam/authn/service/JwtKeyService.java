@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service;
+
+import com.cxyxh.iam.authn.dto.JwksDTO;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * JWT 非对称签名密钥服务接口
+ * <p>
+ * 维护按周期轮换的 ES256 密钥环，轮换后旧密钥保留到其签发的令牌全部过期，公钥通过 JWKS 发布
+ *
+ * @author IAM
+ */
+public interface JwtKeyService {
+
+    /**
+     * 是否启用非对称签名
+     *
+     * @return 是否启用
+     */
+    boolean isEnabled();
+
+    /**
+     * 获取当前用于签名的密钥ID
+     *
+     * @return 密钥ID，未启用非对称签名时返回null
+     */
+    String getActiveKeyId();
+
+    /**
+     * 获取签名私钥
+     *
+     * @param kid 密钥ID
+     * @return 私钥，不存在时返回null
+     */
+    PrivateKey getPrivateKey(String kid);
+
+    /**
+     * 获取验签公钥
+     *
+     * @param kid 密钥ID
+     * @return 公钥，不存在时返回null
+     */
+    PublicKey getPublicKey(String kid);
+
+    /**
+     * 获取 JWKS 公钥集合
+     *
+     * @return 预先序列化的 JWKS 文档
+     */
+    JwksDTO getJwks();
+}
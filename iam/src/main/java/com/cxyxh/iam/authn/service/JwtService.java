@@ -14,6 +14,8 @@
 package com.cxyxh.iam.authn.service;
 
 import com.cxyxh.iam.authn.dto.JwtTokenDTO;
+import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import io.jsonwebtoken.Claims;
 
 /**
  * JWT服务接口
@@ -31,6 +33,16 @@ public interface JwtService {
      */
     JwtTokenDTO generateToken(String username, Long userId);
 
+    /**
+     * 为已认证的用户生成JWT令牌
+     * <p>
+     * 开启无状态主体模式时，访问令牌中会携带用户状态、权限列表和权限版本号
+     *
+     * @param securityUser 已认证的用户
+     * @return JWT令牌DTO
+     */
+    JwtTokenDTO generateToken(SecurityUser securityUser);
+
     /**
      * 刷新JWT令牌
      *
@@ -47,6 +59,24 @@ public interface JwtService {
      */
     boolean validateToken(String token);
 
+    /**
+     * 校验JWT令牌并返回声明
+     * <p>
+     * 同一令牌只做一次签名校验和解析，结果缓存至令牌过期；黑名单检查每次都会执行
+     *
+     * @param token JWT令牌
+     * @return 令牌声明，令牌无效、过期或已失效时返回null
+     */
+    Claims parseToken(String token);
+
+    /**
+     * 从令牌声明直接构建用户主体（无状态主体模式）
+     *
+     * @param claims 已校验的令牌声明
+     * @return 用户主体；未开启该模式、令牌未携带主体信息或权限版本已过期时返回null
+     */
+    SecurityUser getPrincipal(Claims claims);
+
     /**
      * 从JWT令牌中获取用户名
      *
@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service;
+
+/**
+ * 登录限流服务接口
+ * <p>
+ * 按用户名和客户端IP分别统计滑动窗口内的登录失败次数，超过阈值后按指数退避锁定，
+ * 锁定期间的请求在密码校验和数据库查询之前即被拒绝
+ *
+ * @author IAM
+ */
+public interface LoginThrottleService {
+
+    /**
+     * 获取剩余锁定时间
+     *
+     * @param username 用户名
+     * @param clientIp 客户端IP，可为空
+     * @return 剩余锁定毫秒数，未锁定时返回0
+     */
+    long getRetryAfter(String username, String clientIp);
+
+    /**
+     * 记录一次登录失败
+     *
+     * @param username 用户名
+     * @param clientIp 客户端IP，可为空
+     */
+    void onFailure(String username, String clientIp);
+
+    /**
+     * 登录成功后清除该用户名的失败计数与退避等级
+     *
+     * @param username 用户名
+     */
+    void onSuccess(String username);
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌黑名单服务接口
+ * <p>
+ * Redis 中的黑名单是权威数据，每个节点在本地维护一份镜像，常规校验无需访问 Redis。
+ * 黑名单键为 {@link #KEY_PREFIX} + 令牌 jti；不含 jti 的旧令牌仍以完整令牌作为键，直到自然过期
+ *
+ * @author IAM
+ */
+public interface TokenBlacklistService {
+
+    /**
+     * 黑名单键前缀
+     */
+    String KEY_PREFIX = "jwt:blacklist:";
+
+    /**
+     * 判断黑名单键是否存在
+     *
+     * @param key 黑名单键
+     * @return 是否已失效
+     */
+    boolean isRevoked(String key);
+
+    /**
+     * 加入黑名单并通知其他节点
+     *
+     * @param key     黑名单键
+     * @param timeout 过期时间
+     * @param unit    时间单位
+     */
+    void revoke(String key, long timeout, TimeUnit unit);
+
+    /**
+     * 原子地加入黑名单并通知其他节点，同一个键只有一次调用能成功
+     *
+     * @param key     黑名单键
+     * @param timeout 过期时间
+     * @param unit    时间单位
+     * @return 本次调用是否完成加入（已在黑名单中时返回false）
+     */
+    boolean revokeOnce(String key, long timeout, TimeUnit unit);
+
+    /**
+     * 从本地镜像中移除（Redis 键过期时调用）
+     *
+     * @param key 黑名单键
+     */
+    void evict(String key);
+}
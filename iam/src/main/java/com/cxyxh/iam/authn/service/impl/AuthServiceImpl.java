@@ -13,19 +13,22 @@
  */
 package com.cxyxh.iam.authn.service.impl;
 
+import com.cxyxh.iam.authn.dto.CaptchaDTO;
+import com.cxyxh.iam.authn.dto.ChallengeDTO;
 import com.cxyxh.iam.authn.dto.JwtTokenDTO;
 import com.cxyxh.iam.authn.dto.LoginDTO;
 import com.cxyxh.iam.authn.dto.LoginUserVO;
+import com.cxyxh.iam.authn.exception.LoginThrottledException;
 import com.cxyxh.iam.authn.service.AuthService;
+import com.cxyxh.iam.authn.service.CaptchaService;
+import com.cxyxh.iam.authn.service.ChallengeService;
 import com.cxyxh.iam.authn.service.JwtService;
+import com.cxyxh.iam.authn.service.LoginThrottleService;
 import com.cxyxh.iam.config.security.userdetails.SecurityUser;
-import com.cxyxh.iam.user.entity.User;
-import com.cxyxh.iam.user.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -34,12 +37,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.util.*;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -54,23 +53,31 @@ public class AuthServiceImpl implements AuthService {
 
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
-    private final UserService userService;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final LoginThrottleService loginThrottleService;
+    private final CaptchaService captchaService;
+    private final ChallengeService challengeService;
 
     @Value("${captcha.expiration}")
     private long captchaExpiration;
 
-    @Value("${captcha.width}")
-    private int captchaWidth;
-
-    @Value("${captcha.height}")
-    private int captchaHeight;
-
-    @Value("${captcha.length}")
-    private int captchaLength;
-
     @Override
     public LoginUserVO login(LoginDTO loginDTO) {
+        // 限流检查在验证码、密码校验和数据库查询之前
+        long retryAfter = loginThrottleService.getRetryAfter(loginDTO.getUsername(), loginDTO.getClientIp());
+        if (retryAfter > 0) {
+            throw new LoginThrottledException(TimeUnit.MILLISECONDS.toSeconds(retryAfter + 999));
+        }
+
+        // 校验工作量证明，只需一次哈希，在验证码、密码校验和数据库查询之前；
+        // 近期登录失败速率超过阈值时不携带证明的请求直接拒绝
+        boolean hasProof = StringUtils.hasText(loginDTO.getChallengeId());
+        if (hasProof && !challengeService.verify(loginDTO.getChallengeId(), loginDTO.getChallengeSolution())) {
+            throw new IllegalArgumentException("工作量证明无效或已过期");
+        }
+        if (!hasProof && challengeService.isRequired()) {
+            throw new IllegalArgumentException("请先完成工作量证明");
+        }
+
         // 验证验证码
         if (StringUtils.hasText(loginDTO.getCaptchaKey()) && StringUtils.hasText(loginDTO.getCaptcha())) {
             boolean valid = validateCaptcha(loginDTO.getCaptchaKey(), loginDTO.getCaptcha());
@@ -89,30 +96,28 @@ public class AuthServiceImpl implements AuthService {
             
             // 获取用户信息
             SecurityUser securityUser = (SecurityUser) authentication.getPrincipal();
-            User user = userService.getUserByUsername(securityUser.getUsername());
+            loginThrottleService.onSuccess(loginDTO.getUsername());
             
             // 生成JWT令牌
-            JwtTokenDTO jwtTokenDTO = jwtService.generateToken(user.getUsername(), user.getId());
+            JwtTokenDTO jwtTokenDTO = jwtService.generateToken(securityUser);
             
-            // 获取用户角色和权限
-            List<String> roles = userService.getUserRoles(user.getId());
-            List<String> permissions = userService.getUserPermissions(user.getId());
-            
-            // 构建并返回登录用户视图对象
+            // 认证结果已携带用户资料、角色和权限，无需再次查询
             return LoginUserVO.builder()
-                    .userId(user.getId())
-                    .username(user.getUsername())
-                    .nickname(user.getNickname())
-                    .avatar(user.getAvatar())
-                    .tenantId(user.getTenantId())
-                    .roles(roles)
-                    .permissions(permissions)
+                    .userId(securityUser.getUserId())
+                    .username(securityUser.getUsername())
+                    .nickname(securityUser.getNickname())
+                    .avatar(securityUser.getAvatar())
+                    .tenantId(securityUser.getTenantId())
+                    .roles(securityUser.getRoles())
+                    .permissions(securityUser.getPermissions())
                     .accessToken(jwtTokenDTO.getAccessToken())
                     .refreshToken(jwtTokenDTO.getRefreshToken())
                     .tokenType(jwtTokenDTO.getTokenType())
                     .expiresIn(jwtTokenDTO.getExpiresIn())
                     .build();
         } catch (BadCredentialsException e) {
+            loginThrottleService.onFailure(loginDTO.getUsername(), loginDTO.getClientIp());
+            challengeService.recordFailedLogin();
             throw new IllegalArgumentException("用户名或密码错误");
         }
     }
@@ -144,119 +149,24 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public Map<String, String> getCaptcha() {
-        // 生成验证码
-        String captchaCode = generateCaptchaCode(captchaLength);
-        
-        // 生成验证码图片
-        String captchaImage = generateCaptchaImage(captchaCode);
-        
-        // 生成验证码Key
-        String captchaKey = UUID.randomUUID().toString();
-        
-        // 将验证码存入Redis
-        redisTemplate.opsForValue().set("captcha:" + captchaKey, captchaCode, captchaExpiration, TimeUnit.SECONDS);
+        CaptchaDTO captcha = captchaService.generateCaptcha();
         
         // 返回验证码信息
         Map<String, String> result = new HashMap<>();
-        result.put("key", captchaKey);
-        result.put("image", captchaImage);
+        result.put("key", captcha.getCaptchaId());
+        result.put("image", captcha.getCaptchaImage());
         result.put("expireIn", String.valueOf(captchaExpiration));
         
         return result;
     }
 
     @Override
-    public boolean validateCaptcha(String captchaKey, String captchaCode) {
-        if (!StringUtils.hasText(captchaKey) || !StringUtils.hasText(captchaCode)) {
-            return false;
-        }
-        
-        // 从Redis获取验证码
-        String key = "captcha:" + captchaKey;
-        Object value = redisTemplate.opsForValue().get(key);
-        
-        // 验证
-        boolean valid = value != null && captchaCode.equalsIgnoreCase(value.toString());
-        
-        // 无论验证成功与否，都删除验证码
-        redisTemplate.delete(key);
-        
-        return valid;
-    }
-
-    /**
-     * 生成随机验证码
-     *
-     * @param length 验证码长度
-     * @return 验证码
-     */
-    private String generateCaptchaCode(int length) {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        StringBuilder sb = new StringBuilder();
-        Random random = new Random();
-        
-        for (int i = 0; i < length; i++) {
-            int index = random.nextInt(chars.length());
-            sb.append(chars.charAt(index));
-        }
-        
-        return sb.toString();
+    public ChallengeDTO getChallenge() {
+        return challengeService.issueChallenge();
     }
 
-    /**
-     * 生成验证码图片
-     *
-     * @param code 验证码
-     * @return Base64编码的图片
-     */
-    private String generateCaptchaImage(String code) {
-        try {
-            BufferedImage image = new BufferedImage(captchaWidth, captchaHeight, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g = image.createGraphics();
-            
-            // 设置背景色
-            g.setColor(Color.WHITE);
-            g.fillRect(0, 0, captchaWidth, captchaHeight);
-            
-            // 设置字体
-            g.setFont(new Font("Arial", Font.BOLD, captchaHeight / 2));
-            
-            // 添加干扰线
-            Random random = new Random();
-            g.setColor(new Color(160, 160, 160));
-            for (int i = 0; i < 10; i++) {
-                int x1 = random.nextInt(captchaWidth);
-                int y1 = random.nextInt(captchaHeight);
-                int x2 = random.nextInt(captchaWidth);
-                int y2 = random.nextInt(captchaHeight);
-                g.drawLine(x1, y1, x2, y2);
-            }
-            
-            // 添加噪点
-            for (int i = 0; i < 50; i++) {
-                int x = random.nextInt(captchaWidth);
-                int y = random.nextInt(captchaHeight);
-                image.setRGB(x, y, random.nextInt(256));
-            }
-            
-            // 绘制验证码
-            int x = (captchaWidth - code.length() * captchaHeight / 2) / 2;
-            int y = captchaHeight * 3 / 4;
-            
-            for (int i = 0; i < code.length(); i++) {
-                g.setColor(new Color(random.nextInt(100), random.nextInt(100), random.nextInt(100)));
-                g.drawString(String.valueOf(code.charAt(i)), x + i * captchaHeight / 2, y);
-            }
-            
-            g.dispose();
-            
-            // 转换为Base64
-            ByteArrayOutputStream os = new ByteArrayOutputStream();
-            ImageIO.write(image, "png", os);
-            return "data:image/png;base64," + Base64.getEncoder().encodeToString(os.toByteArray());
-        } catch (Exception e) {
-            log.error("生成验证码图片失败: {}", e.getMessage());
-            return null;
-        }
+    @Override
+    public boolean validateCaptcha(String captchaKey, String captchaCode) {
+        return captchaService.validateCaptcha(captchaKey, captchaCode);
     }
-} 
\ No newline at end of file
+}
@@ -13,60 +13,104 @@
  */
 package com.cxyxh.iam.authn.service.impl;
 
+import com.cxyxh.iam.authn.captcha.CaptchaImage;
+import com.cxyxh.iam.authn.captcha.CaptchaPool;
+import com.cxyxh.iam.authn.captcha.CaptchaRenderer;
 import com.cxyxh.iam.authn.dto.CaptchaDTO;
 import com.cxyxh.iam.authn.service.CaptchaService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.util.Base64;
-import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 验证码服务实现类
+ * <p>
+ * 验证码的生成与校验统一在此实现，认证服务的验证码接口也委托到这里
  *
  * @author IAM
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class CaptchaServiceImpl implements CaptchaService {
+public class CaptchaServiceImpl implements CaptchaService, DisposableBean {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CaptchaRenderer captchaRenderer;
+    private final MeterRegistry meterRegistry;
     
     @Value("${captcha.expiration:180}")
     private long captchaExpiration; // 验证码过期时间，默认3分钟
     
+    @Value("${captcha.length:4}")
+    private int codeLength;
+    
+    @Value("${captcha.pool.size:200}")
+    private int poolSize;
+    
+    @Value("${captcha.pool.refill-rate:50}")
+    private int poolRefillRate;
+    
+    /**
+     * 预渲染验证码池，启动完成前为空，此时同步渲染
+     */
+    private volatile CaptchaPool captchaPool;
+    
     private static final String CAPTCHA_PREFIX = "captcha:";
-    private static final int WIDTH = 120;
-    private static final int HEIGHT = 40;
-    private static final int CODE_LENGTH = 4;
-    private static final Random RANDOM = new Random();
+    
+    /**
+     * 包含数字和字母，排除容易混淆的字符如0和O、1和I等
+     */
+    private static final String CODE_CHARS = "23456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghjkmnpqrstuvwxyz";
+
+    /**
+     * 应用启动完成后开始在后台预渲染验证码
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (poolSize <= 0) {
+            return;
+        }
+        CaptchaPool pool = new CaptchaPool("captcha", this::renderCaptcha, poolSize, poolRefillRate, meterRegistry);
+        pool.start();
+        captchaPool = pool;
+    }
+
+    /**
+     * 容器关闭时停止预渲染线程
+     */
+    @Override
+    public void destroy() {
+        CaptchaPool pool = captchaPool;
+        captchaPool = null;
+        if (pool != null) {
+            pool.stop();
+        }
+    }
 
     @Override
     public CaptchaDTO generateCaptcha() {
-        // 生成随机验证码
-        String code = generateRandomCode(CODE_LENGTH);
-        
-        // 生成验证码图片
-        String base64Image = generateImageBase64(code);
+        // 从池中取出预渲染的验证码，池为空时同步渲染
+        CaptchaPool pool = captchaPool;
+        CaptchaImage captcha = pool != null ? pool.take() : renderCaptcha();
         
         // 生成验证码ID
         String captchaId = UUID.randomUUID().toString();
         
         // 存储验证码到Redis，设置过期时间
-        redisTemplate.opsForValue().set(
+        stringRedisTemplate.opsForValue().set(
                 CAPTCHA_PREFIX + captchaId,
-                code,
+                captcha.getCode(),
                 captchaExpiration,
                 TimeUnit.SECONDS
         );
@@ -77,7 +121,7 @@ public class CaptchaServiceImpl implements CaptchaService {
         // 返回验证码DTO
         return CaptchaDTO.builder()
                 .captchaId(captchaId)
-                .captchaImage(base64Image)
+                .captchaImage(captcha.getImage())
                 .expireTime(expireTime)
                 .build();
     }
@@ -88,21 +132,28 @@ public class CaptchaServiceImpl implements CaptchaService {
             return false;
         }
         
-        // 从Redis获取验证码
-        String key = CAPTCHA_PREFIX + captchaId;
-        String storedCode = (String) redisTemplate.opsForValue().get(key);
+        // GETDEL 一次往返取出并删除，无论对错验证码都只能使用一次，并发提交时只有一个请求能取到
+        String storedCode = stringRedisTemplate.opsForValue().getAndDelete(CAPTCHA_PREFIX + captchaId);
         
+        // 验证码不存在或已过期
         if (storedCode == null) {
-            return false; // 验证码不存在或已过期
+            return false;
         }
         
-        // 验证后，删除验证码
-        redisTemplate.delete(key);
-        
         // 不区分大小写比较验证码
         return storedCode.equalsIgnoreCase(captchaCode);
     }
     
+    /**
+     * 渲染一个验证码
+     *
+     * @return 验证码文本和图片
+     */
+    private CaptchaImage renderCaptcha() {
+        String code = generateRandomCode(codeLength);
+        return new CaptchaImage(code, captchaRenderer.render(code));
+    }
+    
     /**
      * 生成随机验证码
      *
@@ -110,60 +161,11 @@ public class CaptchaServiceImpl implements CaptchaService {
      * @return 随机验证码
      */
     private String generateRandomCode(int length) {
-        // 包含数字和字母，排除容易混淆的字符如0和O、1和I等
-        String chars = "23456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghjkmnpqrstuvwxyz";
-        StringBuilder code = new StringBuilder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder code = new StringBuilder(length);
         for (int i = 0; i < length; i++) {
-            code.append(chars.charAt(RANDOM.nextInt(chars.length())));
+            code.append(CODE_CHARS.charAt(random.nextInt(CODE_CHARS.length())));
         }
         return code.toString();
     }
-    
-    /**
-     * 生成验证码图片的Base64编码
-     *
-     * @param code 验证码
-     * @return Base64编码的图片
-     */
-    private String generateImageBase64(String code) {
-        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g = image.createGraphics();
-        
-        // 设置背景
-        g.setColor(Color.WHITE);
-        g.fillRect(0, 0, WIDTH, HEIGHT);
-        
-        // 绘制干扰线
-        g.setColor(Color.LIGHT_GRAY);
-        for (int i = 0; i < 20; i++) {
-            int x1 = RANDOM.nextInt(WIDTH);
-            int y1 = RANDOM.nextInt(HEIGHT);
-            int x2 = x1 + RANDOM.nextInt(20) - 10;
-            int y2 = y1 + RANDOM.nextInt(20) - 10;
-            g.drawLine(x1, y1, x2, y2);
-        }
-        
-        // 绘制验证码
-        g.setFont(new Font("Arial", Font.BOLD, 24));
-        g.setColor(new Color(0, 0, 0));
-        
-        for (int i = 0; i < code.length(); i++) {
-            // 随机旋转角度
-            double theta = (RANDOM.nextInt(60) - 30) * Math.PI / 180;
-            g.rotate(theta, 25 + i * 20, 25);
-            g.drawString(String.valueOf(code.charAt(i)), 20 + i * 20, 28);
-            g.rotate(-theta, 25 + i * 20, 25);
-        }
-        
-        g.dispose();
-        
-        // 转换为Base64编码
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            ImageIO.write(image, "png", baos);
-            return "data:image/png;base64," + Base64.getEncoder().encodeToString(baos.toByteArray());
-        } catch (Exception e) {
-            log.error("生成验证码图片失败", e);
-            return "";
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service.impl;
+
+import com.cxyxh.iam.authn.dto.ChallengeDTO;
+import com.cxyxh.iam.authn.service.ChallengeService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工作量证明挑战服务实现类
+ * <p>
+ * 挑战ID为 128 位随机数，Redis 中以其为键保存签发时的难度。校验时先计算一次 SHA-256，
+ * 前导零不足基础难度的直接拒绝，不访问 Redis；否则用 GETDEL 取出并删除挑战，保证只能使用一次。
+ * 本节点内存中的按秒分桶滑动窗口统计登录失败数：达到阈值后登录必须携带工作量证明且难度加 1 比特，
+ * 此后失败数每翻一倍难度再加 1 比特。
+ *
+ * @author IAM
+ */
+@Slf4j
+@Service
+public class ChallengeServiceImpl implements ChallengeService {
+
+    private static final String CHALLENGE_PREFIX = "challenge:";
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * 解的最大长度，避免对超长输入做哈希
+     */
+    private static final int MAX_SOLUTION_LENGTH = 64;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long expiration;
+    private final int baseDifficulty;
+    private final int maxDifficulty;
+    private final long failureThreshold;
+    private final SlidingWindowCounter failures;
+
+    /**
+     * 构造方法
+     *
+     * @param stringRedisTemplate Redis 字符串模板
+     * @param meterRegistry       指标注册表
+     * @param expiration          挑战有效期（秒）
+     * @param baseDifficulty      基础难度（前导零比特数）
+     * @param maxDifficulty       最大难度
+     * @param failureThreshold    窗口内登录失败数达到该值后要求工作量证明并开始提高难度
+     * @param window              失败统计窗口（秒）
+     */
+    public ChallengeServiceImpl(
+            StringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${challenge.expiration:120}") long expiration,
+            @Value("${challenge.base-difficulty:16}") int baseDifficulty,
+            @Value("${challenge.max-difficulty:24}") int maxDifficulty,
+            @Value("${challenge.failure-threshold:100}") long failureThreshold,
+            @Value("${challenge.window:60}") int window) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.expiration = expiration;
+        this.baseDifficulty = baseDifficulty;
+        this.maxDifficulty = Math.max(maxDifficulty, baseDifficulty);
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.failures = new SlidingWindowCounter(window);
+        Gauge.builder("iam.challenge.difficulty", this, ChallengeServiceImpl::getDifficulty)
+                .description("当前工作量证明难度（前导零比特数）")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ChallengeDTO issueChallenge() {
+        byte[] random = new byte[16];
+        SECURE_RANDOM.nextBytes(random);
+        String challengeId = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+        int difficulty = getDifficulty();
+
+        stringRedisTemplate.opsForValue().set(CHALLENGE_PREFIX + challengeId, String.valueOf(difficulty),
+                expiration, TimeUnit.SECONDS);
+
+        return ChallengeDTO.builder()
+                .challengeId(challengeId)
+                .difficulty(difficulty)
+                .required(isRequired())
+                .algorithm(ALGORITHM)
+                .expireTime(System.currentTimeMillis() + expiration * 1000)
+                .build();
+    }
+
+    @Override
+    public boolean verify(String challengeId, String solution) {
+        if (!StringUtils.hasText(challengeId) || !StringUtils.hasText(solution)
+                || solution.length() > MAX_SOLUTION_LENGTH) {
+            return false;
+        }
+
+        // 先做一次哈希，连基础难度都达不到的请求无需访问 Redis
+        int zeros = leadingZeroBits(challengeId + ":" + solution);
+        if (zeros < baseDifficulty) {
+            return false;
+        }
+
+        // 取出并删除，挑战只能使用一次
+        String issued = stringRedisTemplate.opsForValue().getAndDelete(CHALLENGE_PREFIX + challengeId);
+        if (issued == null) {
+            return false;
+        }
+        try {
+            return zeros >= Integer.parseInt(issued);
+        } catch (NumberFormatException e) {
+            log.warn("无法解析的挑战难度: {}", issued);
+            return false;
+        }
+    }
+
+    @Override
+    public void recordFailedLogin() {
+        failures.increment(System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isRequired() {
+        return failures.sum(System.currentTimeMillis()) >= failureThreshold;
+    }
+
+    @Override
+    public int getDifficulty() {
+        long count = failures.sum(System.currentTimeMillis());
+        if (count < failureThreshold) {
+            return baseDifficulty;
+        }
+        // 达到阈值加 1，此后失败数每翻一倍再加 1
+        int extra = 64 - Long.numberOfLeadingZeros(count / failureThreshold);
+        return Math.min(baseDifficulty + extra, maxDifficulty);
+    }
+
+    /**
+     * 计算 SHA-256 摘要的前导零比特数
+     *
+     * @param input 输入
+     * @return 前导零比特数
+     */
+    static int leadingZeroBits(String input) {
+        MessageDigest digest = DIGEST.get();
+        byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+        int zeros = 0;
+        for (byte b : hash) {
+            if (b == 0) {
+                zeros += 8;
+                continue;
+            }
+            zeros += Integer.numberOfLeadingZeros(b & 0xFF) - 24;
+            break;
+        }
+        return zeros;
+    }
+
+    /**
+     * 按秒分桶的滑动窗口计数器
+     */
+    private static final class SlidingWindowCounter {
+
+        private final long[] counts;
+        private final long[] seconds;
+
+        SlidingWindowCounter(int window) {
+            this.counts = new long[Math.max(window, 1)];
+            this.seconds = new long[counts.length];
+        }
+
+        synchronized void increment(long nowMillis) {
+            long second = nowMillis / 1000;
+            int index = (int) (second % counts.length);
+            if (seconds[index] != second) {
+                seconds[index] = second;
+                counts[index] = 0;
+            }
+            counts[index]++;
+        }
+
+        synchronized long sum(long nowMillis) {
+            long oldest = nowMillis / 1000 - counts.length;
+            long sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (seconds[i] > oldest) {
+                    sum += counts[i];
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service.impl;
+
+import com.cxyxh.iam.authn.dto.JwksDTO;
+import com.cxyxh.iam.authn.service.JwtKeyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JWT 非对称签名密钥服务实现类
+ * <p>
+ * 密钥按轮换周期编号（kid = "k" + 周期序号），公钥保存在 Redis 哈希中供所有节点共享，各节点在内存中持有只读快照。
+ * 私钥不以明文离开进程：先用配置中的密钥加密密钥（KEK，不保存在 Redis）以 AES-GCM 包装，再写入单独的哈希，
+ * 仅读取 Redis 无法签发令牌。
+ * 进入新周期时预先生成下一周期的密钥，使其公钥在启用前已出现在 JWKS 中；
+ * 多个节点同时生成时以 HSETNX 先写入者为准。
+ *
+ * @author IAM
+ */
+@Slf4j
+@Service
+public class JwtKeyServiceImpl implements JwtKeyService {
+
+    /**
+     * 公钥环在 Redis 中的键：kid -> X.509 公钥（Base64）
+     */
+    public static final String KEY_RING_KEY = "jwt:signing-keys:public";
+
+    /**
+     * 包装后的私钥在 Redis 中的键：kid -> IV.密文（Base64）
+     */
+    public static final String WRAPPED_KEY_RING_KEY = "jwt:signing-keys:wrapped";
+
+    /**
+     * 公钥字段不存在时同时写入公钥和包装后的私钥，保证两者来自同一个密钥对
+     */
+    private static final RedisScript<Long> CREATE_KEY_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HSETNX', KEYS[1], ARGV[1], ARGV[2]) == 1 then "
+                    + "redis.call('HSET', KEYS[2], ARGV[1], ARGV[3]) "
+                    + "return 1 "
+                    + "end "
+                    + "return 0",
+            Long.class);
+
+    private static final String ALGORITHM_ES256 = "ES256";
+    private static final String ALGORITHM_HS512 = "HS512";
+    private static final String KID_PREFIX = "k";
+    private static final int COORDINATE_BYTES = 32;
+    private static final String WRAP_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int WRAP_IV_BYTES = 12;
+    private static final int WRAP_TAG_BITS = 128;
+
+    /**
+     * 遇到未知 kid 时重新加载密钥环的最小间隔（毫秒），防止伪造 kid 的请求击穿 Redis
+     */
+    private static final long RELOAD_INTERVAL_MILLIS = 1000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean enabled;
+    private final long rotationMillis;
+    private final long retentionMillis;
+    private final SecretKey keyEncryptionKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private volatile KeyRing keyRing;
+    private volatile long lastReloadMillis;
+
+    /**
+     * 构造方法
+     *
+     * @param stringRedisTemplate    Redis 字符串模板
+     * @param algorithm              签名算法（HS512 或 ES256）
+     * @param rotationInterval       密钥轮换周期（秒）
+     * @param refreshTokenExpiration 刷新令牌过期时间（秒），退役密钥至少保留这么久
+     * @param keyEncryptionKey       私钥包装密钥（Base64 编码的 AES 密钥），ES256 模式必填
+     */
+    public JwtKeyServiceImpl(
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${jwt.signing.algorithm:HS512}") String algorithm,
+            @Value("${jwt.signing.rotation-interval:604800}") long rotationInterval,
+            @Value("${jwt.refresh-token-expiration}") long refreshTokenExpiration,
+            @Value("${jwt.signing.key-encryption-key:}") String keyEncryptionKey) {
+        if (!ALGORITHM_ES256.equalsIgnoreCase(algorithm) && !ALGORITHM_HS512.equalsIgnoreCase(algorithm)) {
+            throw new IllegalStateException("不支持的JWT签名算法: " + algorithm);
+        }
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = ALGORITHM_ES256.equalsIgnoreCase(algorithm);
+        this.rotationMillis = rotationInterval * 1000;
+        this.retentionMillis = refreshTokenExpiration * 1000;
+        this.keyEncryptionKey = enabled ? decodeKeyEncryptionKey(keyEncryptionKey) : null;
+        this.keyRing = KeyRing.empty();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public String getActiveKeyId() {
+        return enabled ? currentKeyRing().activeKid : null;
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String kid) {
+        KeyPair keyPair = findKeyPair(kid);
+        return keyPair == null ? null : keyPair.getPrivate();
+    }
+
+    @Override
+    public PublicKey getPublicKey(String kid) {
+        KeyPair keyPair = findKeyPair(kid);
+        return keyPair == null ? null : keyPair.getPublic();
+    }
+
+    @Override
+    public JwksDTO getJwks() {
+        return enabled ? currentKeyRing().jwks : keyRing.jwks;
+    }
+
+    /**
+     * 查找密钥，本地快照中不存在时（可能由其他节点刚生成）限频重新加载
+     *
+     * @param kid 密钥ID
+     * @return 密钥对
+     */
+    private KeyPair findKeyPair(String kid) {
+        if (!enabled || kid == null) {
+            return null;
+        }
+        KeyRing ring = currentKeyRing();
+        KeyPair keyPair = ring.keys.get(kid);
+        if (keyPair != null) {
+            return keyPair;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now - lastReloadMillis < RELOAD_INTERVAL_MILLIS) {
+                return keyRing.keys.get(kid);
+            }
+            lastReloadMillis = now;
+            keyRing = loadKeyRing(keyRing.period);
+            return keyRing.keys.get(kid);
+        }
+    }
+
+    /**
+     * 获取当前周期的密钥环，进入新周期时生成并加载密钥
+     *
+     * @return 密钥环快照
+     */
+    private KeyRing currentKeyRing() {
+        long period = System.currentTimeMillis() / rotationMillis;
+        KeyRing ring = keyRing;
+        if (ring.period == period) {
+            return ring;
+        }
+        synchronized (this) {
+            ring = keyRing;
+            if (ring.period == period) {
+                return ring;
+            }
+            createKeyIfAbsent(period);
+            createKeyIfAbsent(period + 1);
+            ring = loadKeyRing(period);
+            keyRing = ring;
+            lastReloadMillis = System.currentTimeMillis();
+            log.info("JWT签名密钥环已加载，当前密钥: {}，共 {} 个", ring.activeKid, ring.keys.size());
+            return ring;
+        }
+    }
+
+    /**
+     * 生成指定周期的密钥（已存在时不覆盖）
+     *
+     * @param period 周期序号
+     */
+    private void createKeyIfAbsent(long period) {
+        HashOperations<String, String, String> hashOperations = stringRedisTemplate.opsForHash();
+        String kid = KID_PREFIX + period;
+        if (Boolean.TRUE.equals(hashOperations.hasKey(KEY_RING_KEY, kid))) {
+            return;
+        }
+        KeyPair keyPair = generateKeyPair();
+        String publicKey = Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+        String wrappedPrivateKey = wrapPrivateKey(kid, keyPair.getPrivate());
+        Long created = stringRedisTemplate.execute(CREATE_KEY_SCRIPT,
+                Arrays.asList(KEY_RING_KEY, WRAPPED_KEY_RING_KEY), kid, publicKey, wrappedPrivateKey);
+        if (created != null && created == 1) {
+            log.info("已生成JWT签名密钥: {}", kid);
+        }
+    }
+
+    /**
+     * 从 Redis 加载密钥环，同时清理已超过保留期的密钥
+     *
+     * @param period 当前周期序号
+     * @return 密钥环快照
+     */
+    private KeyRing loadKeyRing(long period) {
+        HashOperations<String, String, String> hashOperations = stringRedisTemplate.opsForHash();
+        Map<String, String> publicKeys = hashOperations.entries(KEY_RING_KEY);
+        Map<String, String> wrappedKeys = hashOperations.entries(WRAPPED_KEY_RING_KEY);
+        long now = System.currentTimeMillis();
+
+        Map<String, KeyPair> keys = new TreeMap<>();
+        for (Map.Entry<String, String> entry : publicKeys.entrySet()) {
+            String kid = entry.getKey();
+            long keyPeriod = Long.parseLong(kid.substring(KID_PREFIX.length()));
+            // 密钥在其周期结束后退役，再保留一个刷新令牌有效期
+            if ((keyPeriod + 1) * rotationMillis + retentionMillis < now) {
+                hashOperations.delete(KEY_RING_KEY, kid);
+                hashOperations.delete(WRAPPED_KEY_RING_KEY, kid);
+                continue;
+            }
+            String wrapped = wrappedKeys.get(kid);
+            PrivateKey privateKey = wrapped == null ? null : unwrapPrivateKey(kid, wrapped);
+            keys.put(kid, new KeyPair(decodePublicKey(entry.getValue()), privateKey));
+        }
+
+        String activeKid = KID_PREFIX + period;
+        KeyPair activeKey = keys.get(activeKid);
+        if (activeKey == null || activeKey.getPrivate() == null) {
+            throw new IllegalStateException("JWT签名密钥不存在: " + activeKid);
+        }
+        return new KeyRing(period, activeKid, Collections.unmodifiableMap(keys), buildJwks(keys));
+    }
+
+    /**
+     * 生成 P-256 密钥对
+     *
+     * @return 密钥对
+     */
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("生成JWT签名密钥失败", e);
+        }
+    }
+
+    /**
+     * 解码 Redis 中保存的 X.509 公钥（Base64 编码）
+     *
+     * @param encoded 编码后的公钥
+     * @return 公钥
+     */
+    private static PublicKey decodePublicKey(String encoded) {
+        try {
+            return KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(encoded)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("解析JWT签名公钥失败", e);
+        }
+    }
+
+    /**
+     * 用 KEK 包装 PKCS#8 私钥，kid 作为附加认证数据，密文不能挪用到其他 kid
+     *
+     * @param kid        密钥ID
+     * @param privateKey 私钥
+     * @return IV 与密文（Base64 编码，以点号分隔）
+     */
+    private String wrapPrivateKey(String kid, PrivateKey privateKey) {
+        byte[] iv = new byte[WRAP_IV_BYTES];
+        secureRandom.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(WRAP_TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(WRAP_TAG_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] wrapped = cipher.doFinal(privateKey.getEncoded());
+            return Base64.getEncoder().encodeToString(iv) + "." + Base64.getEncoder().encodeToString(wrapped);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("包装JWT签名私钥失败", e);
+        }
+    }
+
+    /**
+     * 用 KEK 解开包装后的私钥
+     *
+     * @param kid     密钥ID
+     * @param wrapped IV 与密文（Base64 编码，以点号分隔）
+     * @return 私钥
+     */
+    private PrivateKey unwrapPrivateKey(String kid, String wrapped) {
+        int separator = wrapped.indexOf('.');
+        if (separator <= 0) {
+            throw new IllegalStateException("无法解析的JWT签名私钥: " + kid);
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(WRAP_TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey,
+                    new GCMParameterSpec(WRAP_TAG_BITS, Base64.getDecoder().decode(wrapped.substring(0, separator))));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] encoded = cipher.doFinal(Base64.getDecoder().decode(wrapped.substring(separator + 1)));
+            return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(encoded));
+        } catch (GeneralSecurityException e) {
+            // 通常意味着各节点配置的 KEK 不一致
+            throw new IllegalStateException("解开JWT签名私钥失败: " + kid, e);
+        }
+    }
+
+    /**
+     * 解析配置的密钥加密密钥
+     *
+     * @param encoded Base64 编码的 AES 密钥（16、24 或 32 字节）
+     * @return 密钥加密密钥
+     */
+    private static SecretKey decodeKeyEncryptionKey(String encoded) {
+        if (!StringUtils.hasText(encoded)) {
+            throw new IllegalStateException("ES256 模式需要配置 jwt.signing.key-encryption-key");
+        }
+        byte[] key;
+        try {
+            key = Base64.getDecoder().decode(encoded.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("jwt.signing.key-encryption-key 不是有效的 Base64", e);
+        }
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalStateException("jwt.signing.key-encryption-key 长度必须为 16、24 或 32 字节");
+        }
+        return new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * 构建并序列化 JWKS 文档
+     *
+     * @param keys 密钥环
+     * @return JWKS 文档
+     */
+    private static JwksDTO buildJwks(Map<String, KeyPair> keys) {
+        StringBuilder json = new StringBuilder("{\"keys\":[");
+        boolean first = true;
+        for (Map.Entry<String, KeyPair> entry : keys.entrySet()) {
+            ECPublicKey publicKey = (ECPublicKey) entry.getValue().getPublic();
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"kty\":\"EC\",\"crv\":\"P-256\",\"use\":\"sig\",\"alg\":\"ES256\",\"kid\":\"")
+                    .append(entry.getKey())
+                    .append("\",\"x\":\"").append(encodeCoordinate(publicKey.getW().getAffineX()))
+                    .append("\",\"y\":\"").append(encodeCoordinate(publicKey.getW().getAffineY()))
+                    .append("\"}");
+        }
+        json.append("]}");
+
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        return new JwksDTO(body, etag(body));
+    }
+
+    /**
+     * 将椭圆曲线坐标编码为定长 Base64URL（RFC 7518 6.2.1）
+     *
+     * @param coordinate 坐标
+     * @return 编码结果
+     */
+    private static String encodeCoordinate(BigInteger coordinate) {
+        byte[] bytes = coordinate.toByteArray();
+        byte[] fixed = new byte[COORDINATE_BYTES];
+        int length = Math.min(bytes.length, COORDINATE_BYTES);
+        System.arraycopy(bytes, bytes.length - length, fixed, COORDINATE_BYTES - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    /**
+     * 计算实体标签
+     *
+     * @param body 文档内容
+     * @return 带引号的实体标签
+     */
+    private static String etag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 16) + "\"";
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 不可变的密钥环快照
+     */
+    private static final class KeyRing {
+
+        private final long period;
+        private final String activeKid;
+        private final Map<String, KeyPair> keys;
+        private final JwksDTO jwks;
+
+        private KeyRing(long period, String activeKid, Map<String, KeyPair> keys, JwksDTO jwks) {
+            this.period = period;
+            this.activeKid = activeKid;
+            this.keys = keys;
+            this.jwks = jwks;
+        }
+
+        private static KeyRing empty() {
+            return new KeyRing(-1, null, Collections.emptyMap(), buildJwks(Collections.emptyMap()));
+        }
+    }
+}
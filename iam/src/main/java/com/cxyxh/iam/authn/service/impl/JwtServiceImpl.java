@@ -14,18 +14,34 @@
 package com.cxyxh.iam.authn.service.impl;
 
 import com.cxyxh.iam.authn.dto.JwtTokenDTO;
+import com.cxyxh.iam.authn.service.JwtKeyService;
 import com.cxyxh.iam.authn.service.JwtService;
+import com.cxyxh.iam.authn.service.TokenBlacklistService;
+import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import com.cxyxh.iam.user.service.PermissionVersionService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.Header;
-import io.jsonwebtoken.Jwt;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -38,69 +54,130 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class JwtServiceImpl implements JwtService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final String secret;
+    private static final String CLAIM_STATUS = "status";
+    private static final String CLAIM_AUTHORITIES = "auth";
+    private static final String CLAIM_PERMISSION_VERSION = "pv";
+    private static final int STATUS_ENABLED = 1;
+    private static final int JTI_BYTES = 16;
+    private static final SecureRandom JTI_RANDOM = new SecureRandom();
+
+    private final TokenBlacklistService tokenBlacklistService;
+    private final JwtKeyService jwtKeyService;
+    private final PermissionVersionService permissionVersionService;
+    private final UserDetailsService userDetailsService;
     private final long accessTokenExpiration;
     private final long refreshTokenExpiration;
+    private final boolean statelessPrincipal;
+
+    /**
+     * HMAC 签名密钥，启动时由配置的密钥派生一次（未启用非对称签名时使用，并用于校验不带 kid 的令牌）
+     */
+    private final Key signingKey;
+
+    /**
+     * 预先配置好的解析器，构造后不再修改，可被多线程共享
+     */
+    private final JwtParser jwtParser;
+
+    /**
+     * 已校验令牌的声明缓存，键为令牌摘要，条目在令牌过期时失效
+     */
+    private final Cache<String, Claims> claimsCache;
 
     /**
      * 构造方法
      *
-     * @param redisTemplate         Redis模板
-     * @param secret                密钥
-     * @param accessTokenExpiration 访问令牌过期时间
-     * @param refreshTokenExpiration 刷新令牌过期时间
+     * @param tokenBlacklistService    令牌黑名单服务
+     * @param jwtKeyService            非对称签名密钥服务
+     * @param permissionVersionService 用户权限版本服务
+     * @param userDetailsService       用户详情服务
+     * @param secret                   密钥
+     * @param accessTokenExpiration    访问令牌过期时间
+     * @param refreshTokenExpiration   刷新令牌过期时间
+     * @param claimsCacheMaxSize       声明缓存最大条目数
+     * @param statelessPrincipal       是否开启无状态主体模式
      */
     public JwtServiceImpl(
-            RedisTemplate<String, Object> redisTemplate,
+            TokenBlacklistService tokenBlacklistService,
+            JwtKeyService jwtKeyService,
+            PermissionVersionService permissionVersionService,
+            UserDetailsService userDetailsService,
             @Value("${jwt.secret}") String secret,
             @Value("${jwt.access-token-expiration}") long accessTokenExpiration,
-            @Value("${jwt.refresh-token-expiration}") long refreshTokenExpiration) {
-        this.redisTemplate = redisTemplate;
-        this.secret = secret;
+            @Value("${jwt.refresh-token-expiration}") long refreshTokenExpiration,
+            @Value("${jwt.claims-cache.max-size:10000}") long claimsCacheMaxSize,
+            @Value("${jwt.stateless-principal.enabled:false}") boolean statelessPrincipal) {
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.jwtKeyService = jwtKeyService;
+        this.permissionVersionService = permissionVersionService;
+        this.userDetailsService = userDetailsService;
         this.accessTokenExpiration = accessTokenExpiration;
         this.refreshTokenExpiration = refreshTokenExpiration;
+        this.statelessPrincipal = statelessPrincipal;
+        this.signingKey = new SecretKeySpec(
+                secret.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName());
+        this.jwtParser = Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                return resolveVerificationKey(header);
+            }
+        });
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .build();
     }
 
     @Override
     public JwtTokenDTO generateToken(String username, Long userId) {
         // 生成访问令牌
-        String accessToken = generateAccessToken(username, userId);
+        String accessToken = generateAccessToken(username, userId, null);
         
         // 生成刷新令牌
         String refreshToken = generateRefreshToken(username, userId);
         
         // 构建并返回令牌DTO
-        return JwtTokenDTO.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
-                .tokenType("Bearer")
-                .expiresIn(accessTokenExpiration)
-                .build();
+        return buildTokenDTO(accessToken, refreshToken);
+    }
+
+    @Override
+    public JwtTokenDTO generateToken(SecurityUser securityUser) {
+        String username = securityUser.getUsername();
+        Long userId = securityUser.getUserId();
+        
+        // 无状态主体模式下访问令牌携带主体信息
+        String accessToken = generateAccessToken(username, userId, statelessPrincipal ? securityUser : null);
+        String refreshToken = generateRefreshToken(username, userId);
+        
+        return buildTokenDTO(accessToken, refreshToken);
     }
 
     @Override
     public JwtTokenDTO refreshToken(String refreshToken) {
         try {
             // 验证刷新令牌
-            if (!validateToken(refreshToken)) {
+            Claims claims = parseToken(refreshToken);
+            if (claims == null) {
                 throw new IllegalArgumentException("无效的刷新令牌");
             }
             
             // 从刷新令牌中获取用户名和用户ID
-            String username = getUsernameFromToken(refreshToken);
-            Long userId = getUserIdFromToken(refreshToken);
+            String username = claims.getSubject();
+            Long userId = Long.valueOf(claims.get("userId", String.class));
             
-            // 检查刷新令牌是否在黑名单中
-            String blacklistKey = "jwt:blacklist:" + refreshToken;
-            if (Boolean.TRUE.equals(redisTemplate.hasKey(blacklistKey))) {
+            // 原子地将旧的刷新令牌加入黑名单，并发刷新同一令牌时只有一个请求成功
+            String blacklistKey = getBlacklistKey(refreshToken, claims);
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            if (!tokenBlacklistService.revokeOnce(blacklistKey, remainingMillis, TimeUnit.MILLISECONDS)) {
                 throw new IllegalArgumentException("刷新令牌已失效");
             }
+            claimsCache.invalidate(digest(refreshToken));
             
-            // 将旧的刷新令牌加入黑名单
-            redisTemplate.opsForValue().set(blacklistKey, true, refreshTokenExpiration, TimeUnit.SECONDS);
-            
-            // 生成新的令牌
+            // 生成新的令牌（无状态主体模式下重新加载用户，保证权限为最新）
+            if (statelessPrincipal) {
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                return generateToken((SecurityUser) userDetails);
+            }
             return generateToken(username, userId);
         } catch (Exception e) {
             log.error("刷新令牌失败: {}", e.getMessage());
@@ -110,45 +187,78 @@ public class JwtServiceImpl implements JwtService {
 
     @Override
     public boolean validateToken(String token) {
+        return parseToken(token) != null;
+    }
+
+    @Override
+    public Claims parseToken(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
         try {
-            // 解析令牌
-            Jwts.parser()
-                .setSigningKey(secret.getBytes(StandardCharsets.UTF_8))
-                .parse(token);
+            // 解析令牌（命中缓存时跳过签名校验）
+            Claims claims = getCachedClaims(token);
                 
-            // 检查令牌是否在黑名单中
-            String blacklistKey = "jwt:blacklist:" + token;
-            return !Boolean.TRUE.equals(redisTemplate.hasKey(blacklistKey));
+            // 检查令牌是否在黑名单中（查询本地镜像）
+            String blacklistKey = getBlacklistKey(token, claims);
+            return tokenBlacklistService.isRevoked(blacklistKey) ? null : claims;
         } catch (ExpiredJwtException e) {
             log.error("JWT已过期: {}", e.getMessage());
-            return false;
+            return null;
         } catch (UnsupportedJwtException e) {
             log.error("不支持的JWT: {}", e.getMessage());
-            return false;
+            return null;
         } catch (MalformedJwtException e) {
             log.error("JWT格式不正确: {}", e.getMessage());
-            return false;
+            return null;
         } catch (SignatureException e) {
             log.error("无效的JWT签名: {}", e.getMessage());
-            return false;
+            return null;
         } catch (IllegalArgumentException e) {
             log.error("JWT声明为空: {}", e.getMessage());
-            return false;
+            return null;
         } catch (Exception e) {
             log.error("验证JWT时发生异常: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
+    @Override
+    public SecurityUser getPrincipal(Claims claims) {
+        if (!statelessPrincipal || claims == null || !claims.containsKey(CLAIM_AUTHORITIES)) {
+            return null;
+        }
+        
+        // 被禁用的用户交给数据库路径处理
+        Number status = claims.get(CLAIM_STATUS, Number.class);
+        if (status == null || status.intValue() != STATUS_ENABLED) {
+            return null;
+        }
+        
+        // 权限版本不一致说明角色或状态已变更，令牌中的权限不再可信
+        Long userId = Long.valueOf(claims.get("userId", String.class));
+        Number version = claims.get(CLAIM_PERMISSION_VERSION, Number.class);
+        if (version == null || version.longValue() != permissionVersionService.getVersion(userId)) {
+            return null;
+        }
+        
+        List<?> authorities = claims.get(CLAIM_AUTHORITIES, List.class);
+        List<String> authorityList = new ArrayList<>(authorities.size());
+        for (Object authority : authorities) {
+            authorityList.add(String.valueOf(authority));
+        }
+        return new SecurityUser(userId, claims.getSubject(), null, true, authorityList);
+    }
+
     @Override
     public String getUsernameFromToken(String token) {
-        Claims claims = getAllClaimsFromToken(token);
+        Claims claims = getCachedClaims(token);
         return claims.getSubject();
     }
 
     @Override
     public Long getUserIdFromToken(String token) {
-        Claims claims = getAllClaimsFromToken(token);
+        Claims claims = getCachedClaims(token);
         return Long.valueOf(claims.get("userId", String.class));
     }
 
@@ -156,7 +266,7 @@ public class JwtServiceImpl implements JwtService {
     public void invalidateToken(String token) {
         try {
             // 解析令牌获取过期时间
-            Claims claims = getAllClaimsFromToken(token);
+            Claims claims = getCachedClaims(token);
             Date expiration = claims.getExpiration();
             long expirationTime = expiration.getTime() - System.currentTimeMillis();
             
@@ -166,8 +276,9 @@ public class JwtServiceImpl implements JwtService {
             }
             
             // 将令牌加入黑名单，过期时间与令牌相同
-            String blacklistKey = "jwt:blacklist:" + token;
-            redisTemplate.opsForValue().set(blacklistKey, true, expirationTime, TimeUnit.MILLISECONDS);
+            String blacklistKey = getBlacklistKey(token, claims);
+            tokenBlacklistService.revoke(blacklistKey, expirationTime, TimeUnit.MILLISECONDS);
+            claimsCache.invalidate(digest(token));
         } catch (Exception e) {
             log.error("使令牌失效时发生异常: {}", e.getMessage());
         }
@@ -176,14 +287,20 @@ public class JwtServiceImpl implements JwtService {
     /**
      * 生成访问令牌
      *
-     * @param username 用户名
-     * @param userId   用户ID
+     * @param username     用户名
+     * @param userId       用户ID
+     * @param securityUser 需要写入令牌的用户主体，为null时不携带主体信息
      * @return 访问令牌
      */
-    private String generateAccessToken(String username, Long userId) {
+    private String generateAccessToken(String username, Long userId, SecurityUser securityUser) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId.toString());
         claims.put("type", "access");
+        if (securityUser != null) {
+            claims.put(CLAIM_STATUS, securityUser.isEnabled() ? STATUS_ENABLED : 0);
+            claims.put(CLAIM_AUTHORITIES, securityUser.getAuthoritySet().getCodes());
+            claims.put(CLAIM_PERMISSION_VERSION, permissionVersionService.getVersion(userId));
+        }
         return buildToken(claims, username, accessTokenExpiration);
     }
 
@@ -201,6 +318,22 @@ public class JwtServiceImpl implements JwtService {
         return buildToken(claims, username, refreshTokenExpiration);
     }
 
+    /**
+     * 构建令牌DTO
+     *
+     * @param accessToken  访问令牌
+     * @param refreshToken 刷新令牌
+     * @return 令牌DTO
+     */
+    private JwtTokenDTO buildTokenDTO(String accessToken, String refreshToken) {
+        return JwtTokenDTO.builder()
+                .accessToken(accessToken)
+                .refreshToken(refreshToken)
+                .tokenType("Bearer")
+                .expiresIn(accessTokenExpiration)
+                .build();
+    }
+
     /**
      * 构建令牌
      *
@@ -214,13 +347,21 @@ public class JwtServiceImpl implements JwtService {
         Date issuedAt = new Date(currentTimeMillis);
         Date expirationDate = new Date(currentTimeMillis + expiration * 1000);
         
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setClaims(claims)
+                .setId(generateJti())
                 .setSubject(subject)
                 .setIssuedAt(issuedAt)
-                .setExpiration(expirationDate)
-                .signWith(SignatureAlgorithm.HS512, secret.getBytes(StandardCharsets.UTF_8))
-                .compact();
+                .setExpiration(expirationDate);
+        
+        // 启用非对称签名时使用当前密钥并写入 kid，否则使用共享密钥
+        String kid = jwtKeyService.getActiveKeyId();
+        if (kid != null) {
+            return builder.setHeaderParam(JwsHeader.KEY_ID, kid)
+                    .signWith(SignatureAlgorithm.ES256, jwtKeyService.getPrivateKey(kid))
+                    .compact();
+        }
+        return builder.signWith(SignatureAlgorithm.HS512, signingKey).compact();
     }
 
     /**
@@ -230,9 +371,111 @@ public class JwtServiceImpl implements JwtService {
      * @return 声明
      */
     private Claims getAllClaimsFromToken(String token) {
-        Jwt<Header, Claims> claimsJwt = Jwts.parser()
-                .setSigningKey(secret.getBytes(StandardCharsets.UTF_8))
-                .parse(token);
-        return claimsJwt.getBody();
+        // 只接受已签名的令牌，拒绝未签名（alg=none）的令牌
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * 根据令牌头选择验签密钥
+     * <p>
+     * 带 kid 的令牌只接受 ES256 并使用密钥环中的公钥；不带 kid 的令牌只接受 HMAC 并使用共享密钥，
+     * 防止通过篡改 alg 混用两类密钥
+     *
+     * @param header 令牌头
+     * @return 验签密钥
+     */
+    private Key resolveVerificationKey(JwsHeader header) {
+        SignatureAlgorithm algorithm = SignatureAlgorithm.forName(header.getAlgorithm());
+        String kid = header.getKeyId();
+        if (kid == null) {
+            if (!algorithm.isHmac()) {
+                throw new UnsupportedJwtException("未携带kid的令牌不支持签名算法: " + algorithm);
+            }
+            return signingKey;
+        }
+        if (algorithm != SignatureAlgorithm.ES256) {
+            throw new UnsupportedJwtException("携带kid的令牌不支持签名算法: " + algorithm);
+        }
+        PublicKey publicKey = jwtKeyService.getPublicKey(kid);
+        if (publicKey == null) {
+            throw new SignatureException("未知的签名密钥: " + kid);
+        }
+        return publicKey;
+    }
+
+    /**
+     * 从缓存中获取令牌声明，未命中时解析并校验签名
+     *
+     * @param token 令牌
+     * @return 声明
+     */
+    private Claims getCachedClaims(String token) {
+        return claimsCache.get(digest(token), key -> getAllClaimsFromToken(token));
+    }
+
+    /**
+     * 生成令牌唯一标识（128位随机数，Base64URL编码后22个字符）
+     *
+     * @return 令牌唯一标识
+     */
+    private static String generateJti() {
+        byte[] bytes = new byte[JTI_BYTES];
+        JTI_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * 获取令牌的黑名单键
+     * <p>
+     * 新令牌使用 jti 作为键；升级前签发的令牌没有 jti，仍使用完整令牌作为键，直到其自然过期
+     *
+     * @param token  令牌
+     * @param claims 令牌声明
+     * @return 黑名单键
+     */
+    private static String getBlacklistKey(String token, Claims claims) {
+        String jti = claims.getId();
+        return TokenBlacklistService.KEY_PREFIX + (StringUtils.hasText(jti) ? jti : token);
+    }
+
+    /**
+     * 计算令牌摘要，作为缓存键避免长期持有完整令牌
+     *
+     * @param token 令牌
+     * @return Base64URL编码的SHA-256摘要
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 声明缓存过期策略：条目存活至令牌的过期时间
+     */
+    private static class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return 0;
+            }
+            long remaining = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 } 
\ No newline at end of file
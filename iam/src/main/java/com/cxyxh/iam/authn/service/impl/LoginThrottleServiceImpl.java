@@ -0,0 +1,421 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service.impl;
+
+import com.cxyxh.iam.authn.service.LoginThrottleService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 登录限流服务实现类
+ * <p>
+ * 失败记录保存在 Redis 有序集合中（分值为失败时间），窗口内失败数达到阈值时写入锁定键并清空窗口，
+ * 锁定时长随连续锁定次数指数增长。检查与记录各为一次 Lua 调用。
+ * Redis 超时或异常时在一段时间内改用本地内存计数，保证限流始终生效且不拖慢登录；
+ * 已超时的失败记录脚本若之后仍在 Redis 执行成功，会删除其写入的窗口成员，一次失败只计一次。
+ *
+ * @author IAM
+ */
+@Slf4j
+@Service
+public class LoginThrottleServiceImpl implements LoginThrottleService {
+
+    private static final String WINDOW_PREFIX = "login:fail:";
+    private static final String STRIKE_PREFIX = "login:strike:";
+    private static final String LOCK_PREFIX = "login:lock:";
+
+    private static final String USER_DIMENSION = "user:";
+    private static final String IP_DIMENSION = "ip:";
+
+    /**
+     * Redis 调用失败后改用本地计数的时长（毫秒）
+     */
+    private static final long REDIS_RETRY_INTERVAL_MILLIS = 10_000;
+
+    /**
+     * 返回所有锁定键中最长的剩余毫秒数
+     */
+    private static final RedisScript<Long> CHECK_SCRIPT = new DefaultRedisScript<>(
+            "local ttl = 0 "
+                    + "for i = 1, #KEYS do "
+                    + "local t = redis.call('PTTL', KEYS[i]) "
+                    + "if t > ttl then ttl = t end "
+                    + "end "
+                    + "return ttl",
+            Long.class);
+
+    /**
+     * 每个维度占三个键：窗口、锁定次数、锁定标记；ARGV 依次为当前时间、窗口长度、成员、
+     * 基础锁定时长、最大锁定时长，之后为各维度的失败阈值。返回本次触发的最长锁定毫秒数
+     */
+    private static final RedisScript<Long> FAILURE_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[1]) "
+                    + "local window = tonumber(ARGV[2]) "
+                    + "local base = tonumber(ARGV[4]) "
+                    + "local maxLock = tonumber(ARGV[5]) "
+                    + "local locked = 0 "
+                    + "for i = 0, #KEYS / 3 - 1 do "
+                    + "local w, s, l = KEYS[i * 3 + 1], KEYS[i * 3 + 2], KEYS[i * 3 + 3] "
+                    + "redis.call('ZREMRANGEBYSCORE', w, '-inf', now - window) "
+                    + "redis.call('ZADD', w, now, ARGV[3]) "
+                    + "redis.call('PEXPIRE', w, window) "
+                    + "if redis.call('ZCARD', w) >= tonumber(ARGV[6 + i]) then "
+                    + "local strikes = redis.call('INCR', s) "
+                    + "redis.call('PEXPIRE', s, maxLock * 2) "
+                    + "local lock = math.floor(math.min(base * 2 ^ (strikes - 1), maxLock)) "
+                    + "redis.call('SET', l, '1', 'PX', lock) "
+                    + "redis.call('DEL', w) "
+                    + "if lock > locked then locked = lock end "
+                    + "end "
+                    + "end "
+                    + "return locked",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxUserFailures;
+    private final int maxIpFailures;
+    private final long lockMillis;
+    private final long maxLockMillis;
+    private final long redisTimeoutMillis;
+
+    /**
+     * Redis 调用线程池，调用方按超时等待，超时即降级
+     */
+    private final ThreadPoolExecutor redisExecutor;
+
+    /**
+     * 本地降级计数器：维度键 -> 计数
+     */
+    private final Cache<String, LocalCounter> localCounters;
+
+    private final Counter rejectedCounter;
+    private final Counter fallbackCounter;
+
+    /**
+     * 在此时间（毫秒时间戳）之前跳过 Redis，直接使用本地计数
+     */
+    private volatile long redisSuspendedUntil;
+
+    /**
+     * 构造方法
+     *
+     * @param stringRedisTemplate Redis 字符串模板
+     * @param meterRegistry       指标注册表
+     * @param enabled             是否启用登录限流
+     * @param window              滑动窗口长度（秒）
+     * @param maxUserFailures     单个用户名窗口内最大失败次数
+     * @param maxIpFailures       单个IP窗口内最大失败次数
+     * @param lockDuration        首次锁定时长（秒），之后每次锁定翻倍
+     * @param maxLockDuration     最大锁定时长（秒）
+     * @param redisTimeout        Redis 调用超时（毫秒），超时后降级为本地计数
+     * @param localMaxSize        本地降级计数器最大条目数
+     */
+    public LoginThrottleServiceImpl(
+            StringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${login.throttle.enabled:true}") boolean enabled,
+            @Value("${login.throttle.window:900}") long window,
+            @Value("${login.throttle.max-user-failures:5}") int maxUserFailures,
+            @Value("${login.throttle.max-ip-failures:50}") int maxIpFailures,
+            @Value("${login.throttle.lock-duration:60}") long lockDuration,
+            @Value("${login.throttle.max-lock-duration:3600}") long maxLockDuration,
+            @Value("${login.throttle.redis-timeout:50}") long redisTimeout,
+            @Value("${login.throttle.local-max-size:100000}") long localMaxSize) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = enabled;
+        this.windowMillis = TimeUnit.SECONDS.toMillis(window);
+        this.maxUserFailures = maxUserFailures;
+        this.maxIpFailures = maxIpFailures;
+        this.lockMillis = TimeUnit.SECONDS.toMillis(lockDuration);
+        this.maxLockMillis = TimeUnit.SECONDS.toMillis(Math.max(maxLockDuration, lockDuration));
+        this.redisTimeoutMillis = redisTimeout;
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.redisExecutor = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(256),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-throttle-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.localCounters = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterAccess(windowMillis + this.maxLockMillis * 2, TimeUnit.MILLISECONDS)
+                .build();
+
+        this.rejectedCounter = Counter.builder("iam.login.throttle")
+                .tag("result", "rejected")
+                .description("因失败次数过多被拒绝的登录请求数")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("iam.login.throttle")
+                .tag("result", "fallback")
+                .description("Redis 不可用时改用本地计数的次数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long getRetryAfter(String username, String clientIp) {
+        if (!enabled) {
+            return 0;
+        }
+        List<String> dimensions = dimensions(username, clientIp);
+        List<String> lockKeys = new ArrayList<>(dimensions.size());
+        for (String dimension : dimensions) {
+            lockKeys.add(LOCK_PREFIX + dimension);
+        }
+
+        Long remaining = callRedis(() -> stringRedisTemplate.execute(CHECK_SCRIPT, lockKeys));
+        if (remaining == null) {
+            long now = System.currentTimeMillis();
+            long local = 0;
+            for (String dimension : dimensions) {
+                LocalCounter counter = localCounters.getIfPresent(dimension);
+                if (counter != null) {
+                    local = Math.max(local, counter.remainingLock(now));
+                }
+            }
+            remaining = local;
+        }
+        if (remaining > 0) {
+            rejectedCounter.increment();
+        }
+        return Math.max(remaining, 0);
+    }
+
+    @Override
+    public void onFailure(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        List<String> dimensions = dimensions(username, clientIp);
+        long now = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>(dimensions.size() * 3);
+        String member = now + ":" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        List<String> args = new ArrayList<>(Arrays.asList(
+                String.valueOf(now),
+                String.valueOf(windowMillis),
+                member,
+                String.valueOf(lockMillis),
+                String.valueOf(maxLockMillis)));
+        for (String dimension : dimensions) {
+            keys.add(WINDOW_PREFIX + dimension);
+            keys.add(STRIKE_PREFIX + dimension);
+            keys.add(LOCK_PREFIX + dimension);
+            args.add(String.valueOf(limitOf(dimension)));
+        }
+
+        // 超时后已改用本地计数，脚本迟到完成时撤回其写入的窗口成员
+        Long locked = callRedis(() -> stringRedisTemplate.execute(FAILURE_SCRIPT, keys, args.toArray()), () -> {
+            for (String dimension : dimensions) {
+                stringRedisTemplate.opsForZSet().remove(WINDOW_PREFIX + dimension, member);
+            }
+        });
+        if (locked == null) {
+            locked = 0L;
+            for (String dimension : dimensions) {
+                LocalCounter counter = localCounters.get(dimension, key -> new LocalCounter());
+                locked = Math.max(locked, counter.recordFailure(now, windowMillis, limitOf(dimension), lockMillis, maxLockMillis));
+            }
+        }
+        if (locked > 0) {
+            log.warn("登录失败次数过多，锁定 {} 毫秒: username={}, ip={}", locked, username, clientIp);
+        }
+    }
+
+    @Override
+    public void onSuccess(String username) {
+        if (!enabled || !StringUtils.hasText(username)) {
+            return;
+        }
+        String dimension = USER_DIMENSION + normalize(username);
+        LocalCounter counter = localCounters.getIfPresent(dimension);
+        if (counter != null) {
+            counter.reset();
+        }
+        // 只清除用户名维度，同一IP上成功登录一个账号不应抵消其对其他账号的尝试
+        callRedis(() -> stringRedisTemplate.delete(Arrays.asList(WINDOW_PREFIX + dimension, STRIKE_PREFIX + dimension)));
+    }
+
+    /**
+     * 限流维度：用户名，以及可用时的客户端IP
+     */
+    private List<String> dimensions(String username, String clientIp) {
+        List<String> dimensions = new ArrayList<>(2);
+        dimensions.add(USER_DIMENSION + normalize(username));
+        if (StringUtils.hasText(clientIp)) {
+            dimensions.add(IP_DIMENSION + clientIp);
+        }
+        return dimensions;
+    }
+
+    private int limitOf(String dimension) {
+        return dimension.startsWith(IP_DIMENSION) ? maxIpFailures : maxUserFailures;
+    }
+
+    /**
+     * 用户名在数据库中按不区分大小写比较，计数时统一为小写，避免通过变换大小写绕过限流
+     */
+    private static String normalize(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 在限定时间内执行 Redis 调用
+     *
+     * @param call Redis 调用
+     * @param <T>  结果类型
+     * @return 调用结果，Redis 暂停使用、超时或异常时返回null
+     */
+    private <T> T callRedis(Callable<T> call) {
+        return callRedis(call, null);
+    }
+
+    /**
+     * 在限定时间内执行 Redis 调用
+     * <p>
+     * 已发出的 Redis 命令无法取消，调用方放弃等待后命令仍可能执行成功；
+     * 此时由执行线程在命令完成后执行补偿，撤销其效果，避免与调用方的降级处理重复生效。
+     *
+     * @param call         Redis 调用
+     * @param compensation 调用方放弃等待后命令仍执行成功时的补偿，为null时不补偿
+     * @param <T>          结果类型
+     * @return 调用结果，Redis 暂停使用、超时或异常时返回null
+     */
+    private <T> T callRedis(Callable<T> call, Runnable compensation) {
+        if (System.currentTimeMillis() < redisSuspendedUntil) {
+            return null;
+        }
+        // 0：执行中，1：已完成，2：调用方已放弃
+        AtomicInteger state = new AtomicInteger();
+        Future<T> future = null;
+        try {
+            future = redisExecutor.submit(() -> {
+                T result = call.call();
+                if (!state.compareAndSet(0, 1) && compensation != null) {
+                    compensate(compensation);
+                }
+                return result;
+            });
+            return future.get(redisTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            abandon(future, state, compensation);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            if (!abandon(future, state, compensation)) {
+                // 超时的同时命令已完成，以其结果为准，不再降级
+                try {
+                    return future.get();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                } catch (Exception ignored) {
+                    // 按失败处理
+                }
+            }
+            redisSuspendedUntil = System.currentTimeMillis() + REDIS_RETRY_INTERVAL_MILLIS;
+            fallbackCounter.increment();
+            log.warn("登录限流 Redis 调用失败，{} 毫秒内改用本地计数: {}", REDIS_RETRY_INTERVAL_MILLIS, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 放弃等待 Redis 调用；需要补偿的调用不中断执行线程，由其完成后自行补偿
+     *
+     * @return 是否成功放弃，命令已完成时返回false
+     */
+    private static boolean abandon(Future<?> future, AtomicInteger state, Runnable compensation) {
+        if (!state.compareAndSet(0, 2)) {
+            return false;
+        }
+        if (future != null) {
+            future.cancel(compensation == null);
+        }
+        return true;
+    }
+
+    private static void compensate(Runnable compensation) {
+        try {
+            compensation.run();
+        } catch (Exception e) {
+            log.warn("登录限流 Redis 补偿失败: {}", e.toString());
+        }
+    }
+
+    /**
+     * 本地滑动窗口计数器，语义与 Redis 脚本一致
+     */
+    private static final class LocalCounter {
+
+        private final ArrayDeque<Long> failures = new ArrayDeque<>();
+        private long lockedUntil;
+        private int strikes;
+        private long lastStrikeAt;
+
+        synchronized long remainingLock(long now) {
+            return Math.max(lockedUntil - now, 0);
+        }
+
+        synchronized long recordFailure(long now, long window, int limit, long base, long maxLock) {
+            while (!failures.isEmpty() && failures.peekFirst() <= now - window) {
+                failures.pollFirst();
+            }
+            failures.addLast(now);
+            if (failures.size() < limit) {
+                return 0;
+            }
+            if (now - lastStrikeAt > maxLock * 2) {
+                strikes = 0;
+            }
+            strikes++;
+            lastStrikeAt = now;
+            long lock = Math.min(base << Math.min(strikes - 1, 30), maxLock);
+            lockedUntil = now + lock;
+            failures.clear();
+            return lock;
+        }
+
+        synchronized void reset() {
+            failures.clear();
+            strikes = 0;
+            lockedUntil = 0;
+        }
+    }
+}
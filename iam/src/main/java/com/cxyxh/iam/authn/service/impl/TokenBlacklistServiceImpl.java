@@ -0,0 +1,317 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service.impl;
+
+import com.cxyxh.iam.authn.service.TokenBlacklistService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 令牌黑名单服务实现类
+ * <p>
+ * 启动后先订阅同步频道再全量加载 Redis 中的黑名单，加载完成前查询回退到 Redis；
+ * 同步失败时按指数退避重试，同步状态通过 iam.jwt.blacklist.synced 指标暴露。
+ * 订阅连接断开期间的广播会丢失，因此重新订阅后标记为未同步并重新全量加载，
+ * 另外按 jwt.blacklist.reconcile-interval 定期与 Redis 对账
+ *
+ * @author IAM
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenBlacklistServiceImpl implements TokenBlacklistService, MessageListener, SubscriptionListener,
+        DisposableBean {
+
+    /**
+     * 黑名单同步频道
+     */
+    public static final String SYNC_CHANNEL = "iam:channel:jwt-blacklist";
+
+    /**
+     * 黑名单只关心键是否存在，值固定为一个字节
+     */
+    private static final String REVOKED_VALUE = "1";
+
+    /**
+     * 同步失败后的首次重试间隔与最大重试间隔（毫秒）
+     */
+    private static final long INITIAL_RETRY_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 60_000;
+
+    /**
+     * 仅在键不存在时写入并广播，一次往返完成检查、标记和通知
+     */
+    private static final RedisScript<Long> REVOKE_ONCE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then "
+                    + "redis.call('PUBLISH', ARGV[3], ARGV[4]) "
+                    + "return 1 "
+                    + "end "
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 本地黑名单镜像：键 -> 过期时间（毫秒时间戳）
+     */
+    private final Map<String, Long> revokedKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 本地镜像是否已完成全量同步
+     */
+    private volatile boolean synced;
+
+    /**
+     * 是否已订阅同步频道，重试时不重复订阅
+     */
+    private volatile boolean subscribed;
+
+    /**
+     * 是否已收到过同步频道的订阅确认，之后再次确认说明订阅连接曾断开并已恢复
+     */
+    private volatile boolean subscriptionConfirmed;
+
+    /**
+     * 重新同步请求，唤醒同步线程提前执行全量加载
+     */
+    private final Semaphore resyncRequests = new Semaphore(0);
+
+    /**
+     * 重新订阅次数，全量加载期间发生重新订阅时本次加载不算完成
+     */
+    private final AtomicLong resubscriptions = new AtomicLong();
+
+    /**
+     * 定期对账间隔（秒）
+     */
+    @Value("${jwt.blacklist.reconcile-interval:300}")
+    private long reconcileInterval;
+
+    private volatile Thread syncThread;
+
+    /**
+     * 应用启动完成后在后台线程同步黑名单，避免阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Gauge.builder("iam.jwt.blacklist.synced", this, service -> service.synced ? 1 : 0)
+                .description("令牌黑名单本地镜像是否已完成全量同步")
+                .register(meterRegistry);
+        Thread thread = new Thread(this::synchronizeLoop, "jwt-blacklist-sync");
+        thread.setDaemon(true);
+        thread.start();
+        syncThread = thread;
+    }
+
+    /**
+     * 容器关闭时停止同步线程
+     */
+    @Override
+    public void destroy() {
+        Thread thread = syncThread;
+        syncThread = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 首次同步后按对账间隔或重新订阅请求反复全量加载
+     */
+    private void synchronizeLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                resyncRequests.drainPermits();
+                synchronizeWithRetry();
+                resyncRequests.tryAcquire(Math.max(reconcileInterval, 1), TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 同步直到成功，失败后按指数退避重试
+     *
+     * @throws InterruptedException 线程被中断
+     */
+    private void synchronizeWithRetry() throws InterruptedException {
+        long backoff = INITIAL_RETRY_MILLIS;
+        while (!synchronize()) {
+            log.warn("令牌黑名单本地镜像尚未同步，{}ms 后重试，期间查询回退到 Redis", backoff);
+            Thread.sleep(backoff);
+            backoff = Math.min(backoff * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    /**
+     * 同步频道订阅确认；重复确认时订阅连接刚从断开中恢复，断开期间的广播已丢失，
+     * 在重新全量加载完成前查询回退到 Redis
+     *
+     * @param channel 频道
+     * @param count   订阅数
+     */
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        if (!SYNC_CHANNEL.equals(new String(channel, StandardCharsets.UTF_8))) {
+            return;
+        }
+        if (!subscriptionConfirmed) {
+            subscriptionConfirmed = true;
+            return;
+        }
+        synced = false;
+        resubscriptions.incrementAndGet();
+        resyncRequests.release();
+        log.warn("令牌黑名单同步频道已重新订阅，重新全量加载，期间查询回退到 Redis");
+    }
+
+    /**
+     * 订阅同步频道并全量加载黑名单
+     *
+     * @return 是否同步成功
+     */
+    boolean synchronize() {
+        long resubscribed = resubscriptions.get();
+        try {
+            if (!subscribed) {
+                listenerContainer.addMessageListener(this, new ChannelTopic(SYNC_CHANNEL));
+                subscribed = true;
+            }
+
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+            int loaded = 0;
+            try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    String key = cursor.next();
+                    Long ttl = stringRedisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+                    if (ttl == null || ttl == -2) {
+                        continue;
+                    }
+                    revokedKeys.put(key, ttl < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + ttl);
+                    loaded++;
+                }
+            }
+            if (resubscriptions.get() != resubscribed) {
+                log.warn("令牌黑名单全量加载期间同步频道重新订阅，需要重新加载");
+                return false;
+            }
+            synced = true;
+            log.info("令牌黑名单本地镜像同步完成，共 {} 条", loaded);
+            return true;
+        } catch (Exception e) {
+            log.error("令牌黑名单本地镜像同步失败，继续使用 Redis 查询: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isRevoked(String key) {
+        // 本地镜像尚未就绪时以 Redis 为准
+        if (!synced) {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(key));
+        }
+
+        Long expireAt = revokedKeys.get(key);
+        if (expireAt == null) {
+            return false;
+        }
+        if (expireAt <= System.currentTimeMillis()) {
+            revokedKeys.remove(key, expireAt);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void revoke(String key, long timeout, TimeUnit unit) {
+        stringRedisTemplate.opsForValue().set(key, REVOKED_VALUE, timeout, unit);
+
+        long expireAt = System.currentTimeMillis() + unit.toMillis(timeout);
+        revokedKeys.put(key, expireAt);
+        stringRedisTemplate.convertAndSend(SYNC_CHANNEL, expireAt + " " + key);
+    }
+
+    @Override
+    public boolean revokeOnce(String key, long timeout, TimeUnit unit) {
+        // 本地镜像已确认失效时无需访问 Redis
+        if (synced && isRevoked(key)) {
+            return false;
+        }
+
+        long ttlMillis = Math.max(unit.toMillis(timeout), 1);
+        long expireAt = System.currentTimeMillis() + ttlMillis;
+        Long result = stringRedisTemplate.execute(REVOKE_ONCE_SCRIPT, Collections.singletonList(key),
+                REVOKED_VALUE, String.valueOf(ttlMillis), SYNC_CHANNEL, expireAt + " " + key);
+        if (result == null || result == 0) {
+            return false;
+        }
+        revokedKeys.put(key, expireAt);
+        return true;
+    }
+
+    @Override
+    public void evict(String key) {
+        revokedKeys.remove(key);
+    }
+
+    /**
+     * 接收其他节点的黑名单同步消息，格式为 "过期时间戳 键"
+     *
+     * @param message 消息
+     * @param pattern 模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(' ');
+        if (separator <= 0) {
+            log.warn("无法解析的黑名单同步消息: {}", body);
+            return;
+        }
+        try {
+            long expireAt = Long.parseLong(body.substring(0, separator));
+            revokedKeys.put(body.substring(separator + 1), expireAt);
+        } catch (NumberFormatException e) {
+            log.warn("无法解析的黑名单同步消息: {}", body);
+        }
+    }
+}
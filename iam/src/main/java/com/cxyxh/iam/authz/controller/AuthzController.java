@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authz.controller;
+
+import com.cxyxh.iam.authz.dto.AuthzDecisionRequestDTO;
+import com.cxyxh.iam.authz.service.AuthzService;
+import com.cxyxh.iam.authz.vo.AuthzDecisionVO;
+import com.cxyxh.iam.common.api.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 授权判断控制器
+ *
+ * @author IAM
+ */
+@Tag(name = "授权判断", description = "供网关批量查询授权结果")
+@RestController
+@RequestMapping("/authz")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class AuthzController {
+
+    private final AuthzService authzService;
+
+    @Operation(summary = "批量授权判断")
+    @PostMapping("/decisions")
+    @PreAuthorize("hasAuthority('authz:check')")
+    public Result<AuthzDecisionVO> decide(@RequestBody @Validated AuthzDecisionRequestDTO request) {
+        try {
+            return Result.success(authzService.decide(request));
+        } catch (IllegalArgumentException e) {
+            return Result.failed(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authz.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量授权判断请求
+ * <p>
+ * 主体和权限各自去重后按下标引用，checks 为扁平的 (主体下标, 权限下标) 对。
+ * 主体下标先编号 userIds，再接着编号 tokens。
+ *
+ * @author IAM
+ */
+@Data
+@Schema(description = "批量授权判断请求")
+public class AuthzDecisionRequestDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "用户ID主体")
+    private List<Long> userIds = new ArrayList<>();
+
+    @Schema(description = "访问令牌主体")
+    private List<String> tokens = new ArrayList<>();
+
+    @NotEmpty(message = "权限编码不能为空")
+    @Schema(description = "权限编码", required = true)
+    private List<String> permissions;
+
+    @NotNull(message = "判断项不能为空")
+    @Schema(description = "扁平的 (主体下标, 权限下标) 对，例如 [0,0,0,1,1,0]", required = true)
+    private int[] checks;
+}
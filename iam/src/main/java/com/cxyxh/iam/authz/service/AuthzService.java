@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authz.service;
+
+import com.cxyxh.iam.authz.dto.AuthzDecisionRequestDTO;
+import com.cxyxh.iam.authz.vo.AuthzDecisionVO;
+
+/**
+ * 授权判断服务接口
+ *
+ * @author IAM
+ */
+public interface AuthzService {
+
+    /**
+     * 批量判断主体是否拥有权限
+     *
+     * @param request 判断请求
+     * @return 按位打包的判断结果
+     * @throws IllegalArgumentException 请求超出限制或下标越界
+     */
+    AuthzDecisionVO decide(AuthzDecisionRequestDTO request);
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authz.service.impl;
+
+import com.cxyxh.iam.authn.service.JwtService;
+import com.cxyxh.iam.authz.dto.AuthzDecisionRequestDTO;
+import com.cxyxh.iam.authz.service.AuthzService;
+import com.cxyxh.iam.authz.vo.AuthzDecisionVO;
+import com.cxyxh.iam.config.security.authority.AuthoritySet;
+import com.cxyxh.iam.config.security.authority.PermissionDictionary;
+import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import com.cxyxh.iam.user.dto.UserAuthDTO;
+import com.cxyxh.iam.user.entity.User;
+import com.cxyxh.iam.user.service.PermissionVersionService;
+import com.cxyxh.iam.user.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 授权判断服务实现类
+ * <p>
+ * 每个主体只解析一次权限集合，每个权限编码只查找一次字典ID，之后按判断项顺序逐个做位测试。
+ * 按用户ID解析的权限集合在本地缓存，权限版本号变化后重新加载。
+ *
+ * @author IAM
+ */
+@Slf4j
+@Service
+public class AuthzServiceImpl implements AuthzService {
+
+    private static final int STATUS_ENABLED = 1;
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final String ACCESS_TOKEN_TYPE = "access";
+
+    private final UserService userService;
+    private final JwtService jwtService;
+    private final PermissionVersionService permissionVersionService;
+    private final int maxChecks;
+    private final int maxSubjects;
+    private final Cache<Long, CachedSubject> subjectCache;
+
+    /**
+     * 构造方法
+     *
+     * @param userService              用户服务
+     * @param jwtService               JWT服务
+     * @param permissionVersionService 用户权限版本服务
+     * @param maxChecks                单次请求最大判断项数
+     * @param maxSubjects              单次请求最大主体数
+     * @param subjectMaxSize           主体权限缓存容量
+     * @param subjectExpire            主体权限缓存时间（秒）
+     */
+    public AuthzServiceImpl(
+            UserService userService,
+            JwtService jwtService,
+            PermissionVersionService permissionVersionService,
+            @Value("${authz.decisions.max-checks:10000}") int maxChecks,
+            @Value("${authz.decisions.max-subjects:1000}") int maxSubjects,
+            @Value("${cache.authz-subjects.local-max-size:10000}") long subjectMaxSize,
+            @Value("${cache.authz-subjects.local-expire:60}") long subjectExpire) {
+        this.userService = userService;
+        this.jwtService = jwtService;
+        this.permissionVersionService = permissionVersionService;
+        this.maxChecks = maxChecks;
+        this.maxSubjects = maxSubjects;
+        this.subjectCache = Caffeine.newBuilder()
+                .maximumSize(subjectMaxSize)
+                .expireAfterWrite(subjectExpire, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public AuthzDecisionVO decide(AuthzDecisionRequestDTO request) {
+        List<Long> userIds = request.getUserIds() != null ? request.getUserIds() : List.of();
+        List<String> tokens = request.getTokens() != null ? request.getTokens() : List.of();
+        List<String> permissions = request.getPermissions();
+        int[] checks = request.getChecks();
+
+        int subjectCount = userIds.size() + tokens.size();
+        if (subjectCount > maxSubjects) {
+            throw new IllegalArgumentException("主体数量不能超过" + maxSubjects);
+        }
+        if (checks.length % 2 != 0) {
+            throw new IllegalArgumentException("判断项必须为成对的主体下标和权限下标");
+        }
+        int count = checks.length / 2;
+        if (count > maxChecks) {
+            throw new IllegalArgumentException("判断项数量不能超过" + maxChecks);
+        }
+
+        // 每个主体解析一次权限集合
+        AuthoritySet[] subjects = new AuthoritySet[subjectCount];
+        List<Integer> invalidSubjects = new ArrayList<>();
+        for (int i = 0; i < subjectCount; i++) {
+            subjects[i] = i < userIds.size() ? resolveUser(userIds.get(i)) : resolveToken(tokens.get(i - userIds.size()));
+            if (subjects[i] == null) {
+                invalidSubjects.add(i);
+            }
+        }
+
+        // 每个权限编码查找一次字典ID，字典中不存在的编码任何人都不拥有
+        int[] permissionIds = new int[permissions.size()];
+        for (int i = 0; i < permissionIds.length; i++) {
+            String code = permissions.get(i);
+            permissionIds[i] = code == null ? -1 : PermissionDictionary.find(code);
+        }
+
+        byte[] decisions = new byte[(count + 7) >>> 3];
+        for (int i = 0; i < count; i++) {
+            int subjectIndex = checks[i << 1];
+            int permissionIndex = checks[(i << 1) + 1];
+            if (subjectIndex < 0 || subjectIndex >= subjectCount
+                    || permissionIndex < 0 || permissionIndex >= permissionIds.length) {
+                throw new IllegalArgumentException("第" + i + "个判断项的下标越界");
+            }
+            AuthoritySet authorities = subjects[subjectIndex];
+            int permissionId = permissionIds[permissionIndex];
+            if (authorities != null && permissionId >= 0 && authorities.contains(permissionId)) {
+                decisions[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+
+        AuthzDecisionVO vo = new AuthzDecisionVO();
+        vo.setCount(count);
+        vo.setDecisions(decisions);
+        vo.setInvalidSubjects(invalidSubjects);
+        return vo;
+    }
+
+    /**
+     * 解析访问令牌主体，令牌携带可信权限时不访问用户数据
+     *
+     * @param token 访问令牌
+     * @return 权限集合，令牌无效时返回null
+     */
+    private AuthoritySet resolveToken(String token) {
+        Claims claims = jwtService.parseToken(token);
+        if (claims == null || !ACCESS_TOKEN_TYPE.equals(claims.get("type", String.class))) {
+            return null;
+        }
+        SecurityUser principal = jwtService.getPrincipal(claims);
+        if (principal != null) {
+            return principal.getAuthoritySet();
+        }
+        String userId = claims.get("userId", String.class);
+        return userId == null ? null : resolveUser(Long.valueOf(userId));
+    }
+
+    /**
+     * 解析用户ID主体
+     *
+     * @param userId 用户ID
+     * @return 权限集合，用户不存在或已禁用时返回null
+     */
+    private AuthoritySet resolveUser(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        long version = permissionVersionService.getVersion(userId);
+        CachedSubject cached = subjectCache.getIfPresent(userId);
+        if (cached != null && cached.version() == version) {
+            return cached.authorities();
+        }
+        AuthoritySet authorities = loadAuthorities(userId);
+        subjectCache.put(userId, new CachedSubject(version, authorities));
+        return authorities;
+    }
+
+    private AuthoritySet loadAuthorities(Long userId) {
+        UserAuthDTO userAuth = userService.getUserAuth(userId);
+        if (userAuth == null) {
+            return null;
+        }
+        User user = userAuth.getUser();
+        if (user.getStatus() == null || user.getStatus() != STATUS_ENABLED) {
+            return null;
+        }
+        List<String> codes = new ArrayList<>(userAuth.getPermissions());
+        userAuth.getRoles().forEach(role -> codes.add(ROLE_PREFIX + role));
+        return AuthoritySet.of(codes);
+    }
+
+    /**
+     * 缓存的主体权限及加载时的权限版本号
+     *
+     * @param version     权限版本号
+     * @param authorities 权限集合，主体无效时为null
+     */
+    private record CachedSubject(long version, AuthoritySet authorities) {
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authz.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量授权判断结果
+ *
+ * @author IAM
+ */
+@Data
+@Schema(description = "批量授权判断结果")
+public class AuthzDecisionVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "判断项数量")
+    private int count;
+
+    @Schema(description = "按位打包的判断结果（Base64），第 i 项对应第 i/8 个字节的第 i%8 位（低位在前）")
+    private byte[] decisions;
+
+    @Schema(description = "无法识别的主体下标（令牌无效、用户不存在或已禁用），其判断结果均为拒绝")
+    private List<Integer> invalidSubjects;
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.common.api;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页数据封装类
+ * <p>
+ * 按游标向后翻页，不返回页码；总记录数仅在请求时统计
+ *
+ * @author IAM
+ */
+@Data
+public class CursorPageVO<T> {
+
+    /**
+     * 每页记录数
+     */
+    private Long size;
+
+    /**
+     * 总记录数，未请求统计时为null
+     */
+    private Long total;
+
+    /**
+     * 是否还有下一页
+     */
+    private Boolean hasMore;
+
+    /**
+     * 下一页游标，没有下一页时为null
+     */
+    private String nextCursor;
+
+    /**
+     * 分页数据
+     */
+    private List<T> records;
+}
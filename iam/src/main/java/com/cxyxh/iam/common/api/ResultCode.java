@@ -38,7 +38,15 @@ public enum ResultCode implements IErrorCode {
     /**
      * 没有相关权限
      */
-    FORBIDDEN(403, "没有相关权限");
+    FORBIDDEN(403, "没有相关权限"),
+    /**
+     * 请求过于频繁
+     */
+    TOO_MANY_REQUESTS(429, "请求过于频繁，请稍后重试"),
+    /**
+     * 服务繁忙
+     */
+    SERVICE_UNAVAILABLE(503, "服务繁忙，请稍后重试");
     
     private final long code;
     private final String message;
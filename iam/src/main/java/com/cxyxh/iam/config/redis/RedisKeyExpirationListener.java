@@ -13,6 +13,8 @@
  */
 package com.cxyxh.iam.config.redis;
 
+import com.cxyxh.iam.authn.service.TokenBlacklistService;
+import com.cxyxh.iam.role.service.RolePermissionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
@@ -29,13 +31,22 @@ import org.springframework.stereotype.Component;
 @Component
 public class RedisKeyExpirationListener extends KeyExpirationEventMessageListener {
 
+    private final TokenBlacklistService tokenBlacklistService;
+    private final RolePermissionService rolePermissionService;
+
     /**
      * 构造方法
      *
-     * @param listenerContainer Redis消息监听容器
+     * @param listenerContainer     Redis消息监听容器
+     * @param tokenBlacklistService 令牌黑名单服务
+     * @param rolePermissionService 角色权限缓存服务
      */
-    public RedisKeyExpirationListener(RedisMessageListenerContainer listenerContainer) {
+    public RedisKeyExpirationListener(RedisMessageListenerContainer listenerContainer,
+                                      TokenBlacklistService tokenBlacklistService,
+                                      RolePermissionService rolePermissionService) {
         super(listenerContainer);
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.rolePermissionService = rolePermissionService;
     }
 
     /**
@@ -50,7 +61,7 @@ public class RedisKeyExpirationListener extends KeyExpirationEventMessageListene
         log.debug("Redis key expired: {}", expiredKey);
         
         // 根据不同的键前缀处理不同的过期事件
-        if (expiredKey.startsWith("jwt:blacklist:")) {
+        if (expiredKey.startsWith(TokenBlacklistService.KEY_PREFIX)) {
             // JWT黑名单过期事件
             handleJwtBlacklistExpired(expiredKey);
         } else if (expiredKey.startsWith("captcha:")) {
@@ -59,7 +70,7 @@ public class RedisKeyExpirationListener extends KeyExpirationEventMessageListene
         } else if (expiredKey.startsWith("user:online:")) {
             // 在线用户过期事件
             handleUserOnlineExpired(expiredKey);
-        } else if (expiredKey.startsWith("role:permission:")) {
+        } else if (expiredKey.startsWith(RolePermissionService.KEY_PREFIX)) {
             // 角色权限缓存过期事件
             handleRolePermissionExpired(expiredKey);
         }
@@ -71,7 +82,8 @@ public class RedisKeyExpirationListener extends KeyExpirationEventMessageListene
      * @param key 过期的键
      */
     private void handleJwtBlacklistExpired(String key) {
-        // 可以在这里添加处理逻辑，比如记录日志等
+        // 同步移除本地黑名单镜像
+        tokenBlacklistService.evict(key);
         log.debug("JWT blacklist expired: {}", key);
     }
 
@@ -102,8 +114,13 @@ public class RedisKeyExpirationListener extends KeyExpirationEventMessageListene
      * @param key 过期的键
      */
     private void handleRolePermissionExpired(String key) {
-        // 可以在这里添加处理逻辑，比如重新加载权限等
-        String roleId = key.substring("role:permission:".length());
+        // 后台重新加载，加载完成前继续使用本地副本
+        String roleId = key.substring(RolePermissionService.KEY_PREFIX.length());
         log.debug("Role permission cache expired: {}", roleId);
+        try {
+            rolePermissionService.reloadAsync(Long.valueOf(roleId));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid role permission key: {}", key);
+        }
     }
 } 
\ No newline at end of file
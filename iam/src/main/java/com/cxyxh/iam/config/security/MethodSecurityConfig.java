@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security;
+
+import com.cxyxh.iam.config.security.authorization.CompiledAuthorizationManager;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+
+/**
+ * 方法级安全配置
+ * <p>
+ * 替换默认的 @PreAuthorize 拦截器，简单表达式在启动时预编译为权限位测试，其余表达式仍由 SpEL 处理
+ *
+ * @author IAM
+ */
+@Configuration
+public class MethodSecurityConfig {
+
+    /**
+     * 预编译授权管理器
+     *
+     * @param applicationContext 应用上下文
+     * @return CompiledAuthorizationManager
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static CompiledAuthorizationManager compiledAuthorizationManager(ApplicationContext applicationContext) {
+        DefaultMethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
+        expressionHandler.setApplicationContext(applicationContext);
+        PreAuthorizeAuthorizationManager fallback = new PreAuthorizeAuthorizationManager();
+        fallback.setExpressionHandler(expressionHandler);
+        return new CompiledAuthorizationManager(fallback);
+    }
+
+    /**
+     * PreAuthorize 方法拦截器
+     *
+     * @param compiledAuthorizationManager 预编译授权管理器
+     * @return Advisor
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor preAuthorizeAuthorizationMethodInterceptor(CompiledAuthorizationManager compiledAuthorizationManager) {
+        return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(compiledAuthorizationManager);
+    }
+}
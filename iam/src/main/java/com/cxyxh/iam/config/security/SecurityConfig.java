@@ -16,6 +16,8 @@ package com.cxyxh.iam.config.security;
 import com.cxyxh.iam.config.security.filter.JwtAuthenticationFilter;
 import com.cxyxh.iam.config.security.handler.AccessDeniedHandlerImpl;
 import com.cxyxh.iam.config.security.handler.AuthenticationEntryPointImpl;
+import com.cxyxh.iam.config.security.password.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -46,7 +48,7 @@ import java.util.List;
  */
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity
+@EnableMethodSecurity(prePostEnabled = false)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class SecurityConfig {
 
@@ -57,6 +59,9 @@ public class SecurityConfig {
     @Value("${security.permit-all-urls}")
     private String[] permitAllUrls;
 
+    @Value("${security.actuator-authority:system:monitor}")
+    private String actuatorAuthority;
+
     @Value("${cors.allowed-origins}")
     private String allowedOrigins;
 
@@ -71,12 +76,23 @@ public class SecurityConfig {
 
     /**
      * 密码编码器
+     * <p>
+     * BCrypt 哈希在专用有界线程池中执行，繁忙时快速拒绝而不是占满请求线程
      *
-     * @return BCryptPasswordEncoder
+     * @param meterRegistry 指标注册表
+     * @param threads       哈希线程数，未配置时取 CPU 核数
+     * @param queueCapacity 等待队列容量
+     * @param maxWait       任务最长排队时间（毫秒）
+     * @return BoundedPasswordEncoder
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public static PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${password.encoder.threads:0}") int threads,
+            @Value("${password.encoder.queue-capacity:64}") int queueCapacity,
+            @Value("${password.encoder.max-wait:2000}") long maxWait) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity, maxWait, meterRegistry);
     }
 
     /**
@@ -115,6 +131,9 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authorize -> authorize
                         // 放行指定路径
                         .requestMatchers(permitAllUrls).permitAll()
+                        // 监控端点：健康检查放行，其余需要监控权限
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasAuthority(actuatorAuthority)
                         // 其他请求需要认证
                         .anyRequest().authenticated())
                 // 添加JWT过滤器
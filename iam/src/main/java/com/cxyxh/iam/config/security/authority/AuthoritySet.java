@@ -0,0 +1,213 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security.authority;
+
+import com.github.benmanes.caffeine.cache.Interner;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 不可变的权限集合（位图）
+ * <p>
+ * 每一位对应 {@link PermissionDictionary} 中的一个权限ID，权限判断是一次位运算。
+ * 通过 {@link #of(Collection)} 创建的集合按内容驻留，角色组合相同的用户共享同一个实例；
+ * {@link GrantedAuthority} 视图在创建时构建一次，之后重复使用。
+ *
+ * @author IAM
+ */
+public final class AuthoritySet {
+
+    private static final Interner<AuthoritySet> INTERNER = Interner.newWeakInterner();
+
+    /**
+     * 空集合
+     */
+    public static final AuthoritySet EMPTY = INTERNER.intern(new AuthoritySet(new long[0]));
+
+    private final long[] words;
+    private final int hash;
+
+    /**
+     * 权限视图，首次使用时构建（驻留时被丢弃的候选实例不会构建）
+     */
+    private volatile List<GrantedAuthority> grantedAuthorities;
+    private volatile List<String> codes;
+
+    private AuthoritySet(long[] words) {
+        this.words = words;
+        this.hash = Arrays.hashCode(words);
+    }
+
+    /**
+     * 根据权限编码创建权限集合，返回驻留的共享实例
+     *
+     * @param authorityCodes 权限编码
+     * @return 权限集合
+     */
+    public static AuthoritySet of(Collection<String> authorityCodes) {
+        if (authorityCodes == null || authorityCodes.isEmpty()) {
+            return EMPTY;
+        }
+        long[] words = new long[0];
+        for (String code : authorityCodes) {
+            int id = PermissionDictionary.intern(code);
+            int index = id >>> 6;
+            if (index >= words.length) {
+                words = Arrays.copyOf(words, index + 1);
+            }
+            words[index] |= 1L << id;
+        }
+        return INTERNER.intern(new AuthoritySet(words));
+    }
+
+    /**
+     * 是否拥有指定权限
+     *
+     * @param code 权限编码
+     * @return 是否拥有
+     */
+    public boolean contains(String code) {
+        return contains(PermissionDictionary.find(code));
+    }
+
+    /**
+     * 是否拥有指定ID的权限
+     *
+     * @param id 权限ID
+     * @return 是否拥有
+     */
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int index = id >>> 6;
+        return index < words.length && (words[index] & (1L << id)) != 0;
+    }
+
+    /**
+     * 是否拥有任一权限
+     *
+     * @param ids 权限ID
+     * @return 是否拥有
+     */
+    public boolean containsAny(int... ids) {
+        for (int id : ids) {
+            if (contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取 Spring Security 权限视图（共享的不可变列表）
+     *
+     * @return 权限列表
+     */
+    public Collection<GrantedAuthority> getGrantedAuthorities() {
+        List<GrantedAuthority> authorities = grantedAuthorities;
+        if (authorities == null) {
+            List<GrantedAuthority> list = new ArrayList<>();
+            for (int id = nextSetBit(0); id >= 0; id = nextSetBit(id + 1)) {
+                list.add(PermissionDictionary.authority(id));
+            }
+            authorities = Collections.unmodifiableList(list);
+            grantedAuthorities = authorities;
+        }
+        return authorities;
+    }
+
+    /**
+     * 获取权限编码（共享的不可变列表）
+     *
+     * @return 权限编码列表
+     */
+    public List<String> getCodes() {
+        List<String> codeList = codes;
+        if (codeList == null) {
+            List<String> list = new ArrayList<>();
+            for (GrantedAuthority authority : getGrantedAuthorities()) {
+                list.add(authority.getAuthority());
+            }
+            codeList = Collections.unmodifiableList(list);
+            codes = codeList;
+        }
+        return codeList;
+    }
+
+    /**
+     * 权限数量
+     *
+     * @return 权限数量
+     */
+    public int size() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * 获取底层位图的副本
+     *
+     * @return 位图
+     */
+    public long[] toLongArray() {
+        return words.clone();
+    }
+
+    private int nextSetBit(int fromIndex) {
+        int index = fromIndex >>> 6;
+        if (index >= words.length) {
+            return -1;
+        }
+        long word = words[index] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (index << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AuthoritySet)) {
+            return false;
+        }
+        return Arrays.equals(words, ((AuthoritySet) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return getCodes().toString();
+    }
+}
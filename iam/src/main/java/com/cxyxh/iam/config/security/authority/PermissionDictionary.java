@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security.authority;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 权限字典
+ * <p>
+ * 为每个权限编码（包括 ROLE_ 前缀的角色编码）分配一个稠密的整数ID，并为每个编码保存唯一的
+ * {@link GrantedAuthority} 实例。ID 在进程内单调分配、永不回收，编码数量受数据库中的角色和权限数量约束。
+ *
+ * @author IAM
+ */
+public final class PermissionDictionary {
+
+    private static final Map<String, Integer> CODE_TO_ID = new ConcurrentHashMap<>();
+
+    /**
+     * ID 到权限实例的映射，写时复制，读取无锁
+     */
+    private static volatile GrantedAuthority[] authorities = new GrantedAuthority[0];
+
+    private PermissionDictionary() {
+    }
+
+    /**
+     * 获取编码对应的ID，不存在时分配新ID
+     *
+     * @param code 权限编码
+     * @return 权限ID
+     */
+    public static int intern(String code) {
+        Integer id = CODE_TO_ID.get(code);
+        if (id != null) {
+            return id;
+        }
+        synchronized (PermissionDictionary.class) {
+            id = CODE_TO_ID.get(code);
+            if (id != null) {
+                return id;
+            }
+            int newId = authorities.length;
+            GrantedAuthority[] expanded = Arrays.copyOf(authorities, newId + 1);
+            expanded[newId] = new SimpleGrantedAuthority(code);
+            // 先发布实例再发布ID，读到ID的线程一定能读到实例
+            authorities = expanded;
+            CODE_TO_ID.put(code, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * 查找编码对应的ID，不分配新ID（用于权限判断，避免任意编码撑大字典）
+     *
+     * @param code 权限编码
+     * @return 权限ID，不存在时返回-1
+     */
+    public static int find(String code) {
+        Integer id = CODE_TO_ID.get(code);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * 获取ID对应的权限实例
+     *
+     * @param id 权限ID
+     * @return 权限实例
+     */
+    public static GrantedAuthority authority(int id) {
+        return authorities[id];
+    }
+
+    /**
+     * 当前字典中的编码数量
+     *
+     * @return 编码数量
+     */
+    public static int size() {
+        return authorities.length;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security.authorization;
+
+import com.cxyxh.iam.config.security.authority.PermissionDictionary;
+import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的 @PreAuthorize 授权管理器
+ * <p>
+ * 将 hasAuthority、hasAnyAuthority、hasRole、hasAnyRole 这类简单表达式预先解析为权限ID，
+ * 调用时直接在用户的权限位图上测试，无需 SpEL 解析和求值；无法编译的表达式回退到 SpEL 授权管理器。
+ * 编译结果按方法和目标类缓存，启动时由 {@link PermissionCatalog} 预热。
+ *
+ * @author IAM
+ */
+@Slf4j
+public class CompiledAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    /**
+     * 角色前缀
+     */
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    /**
+     * 单个权限判断表达式，例如 hasAuthority('user:view') 或 hasAnyRole('ADMIN', 'USER')
+     */
+    private static final Pattern SIMPLE_EXPRESSION = Pattern.compile(
+            "^\\s*(hasAuthority|hasAnyAuthority|hasRole|hasAnyRole)\\s*\\(\\s*('[^']*'(?:\\s*,\\s*'[^']*')*)\\s*\\)\\s*$");
+
+    /**
+     * 表达式中引用的权限编码，用于为无法编译的表达式收集权限目录
+     */
+    private static final Pattern REFERENCED_CODE = Pattern.compile(
+            "(hasAuthority|hasAnyAuthority|hasRole|hasAnyRole)\\s*\\(([^)]*)\\)");
+
+    private static final Pattern QUOTED = Pattern.compile("'([^']*)'");
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    /**
+     * SpEL 授权管理器，处理无法编译的表达式
+     */
+    private final AuthorizationManager<MethodInvocation> fallback;
+
+    /**
+     * 方法与目标类 -> 编译结果
+     */
+    private final Map<MethodClassKey, CompiledRule> rules = new ConcurrentHashMap<>();
+
+    public CompiledAuthorizationManager(AuthorizationManager<MethodInvocation> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        CompiledRule rule = getRule(invocation.getMethod(), targetClass(invocation));
+        if (!rule.isCompiled()) {
+            return fallback.authorize(authentication, invocation);
+        }
+        return rule.test(authentication.get()) ? GRANTED : DENIED;
+    }
+
+    @Override
+    @Deprecated
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        AuthorizationResult result = authorize(authentication, invocation);
+        if (result == null || result instanceof AuthorizationDecision) {
+            return (AuthorizationDecision) result;
+        }
+        return result.isGranted() ? GRANTED : DENIED;
+    }
+
+    /**
+     * 获取方法的编译结果，首次访问时编译
+     *
+     * @param method      方法
+     * @param targetClass 目标类
+     * @return 编译结果
+     */
+    public CompiledRule getRule(Method method, Class<?> targetClass) {
+        MethodClassKey key = new MethodClassKey(method, targetClass);
+        CompiledRule rule = rules.get(key);
+        if (rule == null) {
+            rule = rules.computeIfAbsent(key, k -> compile(findExpression(method, targetClass)));
+        }
+        return rule;
+    }
+
+    /**
+     * 编译 @PreAuthorize 表达式
+     *
+     * @param expression 表达式，为null时表示方法上没有注解
+     * @return 编译结果
+     */
+    static CompiledRule compile(String expression) {
+        if (expression == null) {
+            return CompiledRule.fallback(null, Collections.emptyList());
+        }
+        Matcher matcher = SIMPLE_EXPRESSION.matcher(expression);
+        if (!matcher.matches()) {
+            log.debug("@PreAuthorize 表达式无法预编译，回退到 SpEL: {}", expression);
+            return CompiledRule.fallback(expression, referencedCodes(expression));
+        }
+
+        boolean role = matcher.group(1).endsWith("Role");
+        boolean any = matcher.group(1).startsWith("hasAny");
+        List<String> codes = quotedValues(matcher.group(2), role);
+        if (codes.isEmpty() || (!any && codes.size() != 1)) {
+            return CompiledRule.fallback(expression, codes);
+        }
+
+        int[] ids = new int[codes.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = PermissionDictionary.intern(codes.get(i));
+        }
+        return new CompiledRule(expression, true, codes, ids);
+    }
+
+    /**
+     * 收集表达式中引用的全部权限编码
+     *
+     * @param expression 表达式
+     * @return 权限编码
+     */
+    private static List<String> referencedCodes(String expression) {
+        List<String> codes = new ArrayList<>();
+        Matcher matcher = REFERENCED_CODE.matcher(expression);
+        while (matcher.find()) {
+            codes.addAll(quotedValues(matcher.group(2), matcher.group(1).endsWith("Role")));
+        }
+        return codes;
+    }
+
+    private static List<String> quotedValues(String arguments, boolean role) {
+        List<String> values = new ArrayList<>();
+        Matcher matcher = QUOTED.matcher(arguments);
+        while (matcher.find()) {
+            String value = matcher.group(1);
+            values.add(role && !value.startsWith(ROLE_PREFIX) ? ROLE_PREFIX + value : value);
+        }
+        return values;
+    }
+
+    /**
+     * 查找方法上的 @PreAuthorize 表达式，方法上没有时取类上的注解
+     */
+    private static String findExpression(Method method, Class<?> targetClass) {
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        PreAuthorize preAuthorize = AnnotatedElementUtils.findMergedAnnotation(specificMethod, PreAuthorize.class);
+        if (preAuthorize == null) {
+            preAuthorize = AnnotatedElementUtils.findMergedAnnotation(specificMethod.getDeclaringClass(), PreAuthorize.class);
+        }
+        return preAuthorize == null ? null : preAuthorize.value();
+    }
+
+    private static Class<?> targetClass(MethodInvocation invocation) {
+        Object target = invocation.getThis();
+        return target != null ? AopUtils.getTargetClass(target) : invocation.getMethod().getDeclaringClass();
+    }
+
+    /**
+     * 表达式编译结果
+     */
+    @Getter
+    public static final class CompiledRule {
+
+        /**
+         * 原始表达式
+         */
+        private final String expression;
+
+        /**
+         * 是否已编译为权限位测试
+         */
+        private final boolean compiled;
+
+        /**
+         * 表达式引用的权限编码（角色带 ROLE_ 前缀）
+         */
+        private final List<String> codes;
+
+        /**
+         * 任意一个命中即放行的权限ID
+         */
+        private final int[] ids;
+
+        private CompiledRule(String expression, boolean compiled, List<String> codes, int[] ids) {
+            this.expression = expression;
+            this.compiled = compiled;
+            this.codes = Collections.unmodifiableList(codes);
+            this.ids = ids;
+        }
+
+        private static CompiledRule fallback(String expression, List<String> codes) {
+            return new CompiledRule(expression, false, codes, new int[0]);
+        }
+
+        /**
+         * 判断认证信息是否具有任意一个权限
+         *
+         * @param authentication 认证信息
+         * @return 是否放行
+         */
+        boolean test(Authentication authentication) {
+            if (authentication == null) {
+                return false;
+            }
+            // 令牌中的权限来自 SecurityUser，直接测试权限位图
+            if (authentication.getPrincipal() instanceof SecurityUser securityUser) {
+                return securityUser.getAuthoritySet().containsAny(ids);
+            }
+            Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+            for (GrantedAuthority authority : authorities) {
+                if (codes.contains(authority.getAuthority())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
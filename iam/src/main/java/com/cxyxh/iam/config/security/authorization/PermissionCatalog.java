@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security.authorization;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 权限目录
+ * <p>
+ * 启动时扫描所有控制器上的 @PreAuthorize 注解，预编译授权规则并汇总代码中引用的全部权限编码
+ *
+ * @author IAM
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PermissionCatalog {
+
+    private final ApplicationContext applicationContext;
+    private final CompiledAuthorizationManager authorizationManager;
+
+    /**
+     * 代码中引用的权限编码（有序、不可变）
+     */
+    private volatile Set<String> codes = Collections.emptySet();
+
+    /**
+     * 应用启动完成后扫描控制器
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Set<String> collected = new TreeSet<>();
+        int compiled = 0;
+        int fallback = 0;
+        for (Object controller : applicationContext.getBeansWithAnnotation(Controller.class).values()) {
+            Class<?> targetClass = AopUtils.getTargetClass(controller);
+            boolean classAnnotated = AnnotatedElementUtils.hasAnnotation(targetClass, PreAuthorize.class);
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(targetClass, ReflectionUtils.USER_DECLARED_METHODS)) {
+                if (!classAnnotated && !AnnotatedElementUtils.hasAnnotation(method, PreAuthorize.class)) {
+                    continue;
+                }
+                CompiledAuthorizationManager.CompiledRule rule = authorizationManager.getRule(method, targetClass);
+                collected.addAll(rule.getCodes());
+                if (rule.isCompiled()) {
+                    compiled++;
+                } else {
+                    fallback++;
+                    log.info("@PreAuthorize 表达式回退到 SpEL: {}#{} -> {}",
+                            targetClass.getSimpleName(), method.getName(), rule.getExpression());
+                }
+            }
+        }
+        codes = Collections.unmodifiableSet(collected);
+        log.info("权限目录加载完成，共 {} 个权限编码，{} 个方法已预编译，{} 个方法使用 SpEL", collected.size(), compiled, fallback);
+    }
+
+    /**
+     * 获取代码中引用的全部权限编码
+     *
+     * @return 权限编码
+     */
+    public Set<String> getCodes() {
+        return codes;
+    }
+}
@@ -14,6 +14,7 @@
 package com.cxyxh.iam.config.security.filter;
 
 import com.cxyxh.iam.authn.service.JwtService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -51,13 +52,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // 从请求头中获取JWT令牌
             String jwt = getJwtFromRequest(request);
             
-            // 如果存在令牌且验证通过
-            if (StringUtils.hasText(jwt) && jwtService.validateToken(jwt)) {
+            // 如果存在令牌且验证通过（校验与解析只做一次）
+            Claims claims = StringUtils.hasText(jwt) ? jwtService.parseToken(jwt) : null;
+            if (claims != null) {
                 // 从令牌中获取用户名
-                String username = jwtService.getUsernameFromToken(jwt);
+                String username = claims.getSubject();
                 
-                // 加载用户详情
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // 优先使用令牌中携带的主体，不可用时再加载用户详情
+                UserDetails userDetails = jwtService.getPrincipal(claims);
+                if (userDetails == null) {
+                    userDetails = userDetailsService.loadUserByUsername(username);
+                }
                 
                 // 创建认证令牌
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security.password;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 有界线程池密码编码器
+ * <p>
+ * BCrypt 的编码与校验是刻意设计的 CPU 密集操作，直接在 Tomcat 线程上执行时，登录洪峰会占满全部请求线程，
+ * 连令牌校验这类廉价请求也无法得到处理。这里将哈希操作转交给固定大小的专用线程池：
+ * <ul>
+ *     <li>线程数限制同时进行的哈希数量，队列容量限制排队数量，两者之和即最多被占用的请求线程数</li>
+ *     <li>队列已满时立即拒绝，在队列中等待超过上限的任务不再执行，均抛出 {@link PasswordEncoderBusyException}</li>
+ *     <li>记录排队深度、排队等待耗时、哈希耗时与拒绝次数</li>
+ * </ul>
+ *
+ * @author IAM
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+
+    private final Timer waitTimer;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter queueFullCounter;
+    private final Counter waitTimeoutCounter;
+
+    /**
+     * 构造函数
+     *
+     * @param delegate      实际执行哈希的编码器
+     * @param threads       哈希线程数
+     * @param queueCapacity 等待队列容量
+     * @param maxWaitMillis 任务在队列中的最长等待时间（毫秒）
+     * @param meterRegistry 指标注册表
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  long maxWaitMillis, MeterRegistry meterRegistry) {
+        if (threads <= 0 || queueCapacity <= 0 || maxWaitMillis <= 0) {
+            throw new IllegalArgumentException("密码哈希线程数、队列容量与最长等待时间必须为正数");
+        }
+        this.delegate = delegate;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-encoder-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.prestartAllCoreThreads();
+
+        Gauge.builder("iam.password.queue", executor, pool -> pool.getQueue().size())
+                .description("等待执行的密码哈希任务数")
+                .register(meterRegistry);
+        Gauge.builder("iam.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行的密码哈希任务数")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("iam.password.wait")
+                .description("密码哈希任务在队列中的等待耗时")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("iam.password.hash")
+                .tag("operation", "encode")
+                .description("密码哈希耗时")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("iam.password.hash")
+                .tag("operation", "matches")
+                .description("密码哈希耗时")
+                .register(meterRegistry);
+        this.queueFullCounter = Counter.builder("iam.password.rejected")
+                .tag("reason", "queue-full")
+                .register(meterRegistry);
+        this.waitTimeoutCounter = Counter.builder("iam.password.rejected")
+                .tag("reason", "wait-timeout")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // 只解析哈希前缀中的强度参数，无需转交线程池
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * 在哈希线程池中执行操作并等待结果
+     *
+     * @param hashTimer 哈希耗时计时器
+     * @param operation 哈希操作
+     * @param <T>       结果类型
+     * @return 操作结果
+     */
+    private <T> T execute(Timer hashTimer, Supplier<T> operation) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long waited = System.nanoTime() - submittedAt;
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+                // 排队过久的请求，客户端大概率已超时，不再消耗 CPU
+                if (waited > maxWaitNanos) {
+                    waitTimeoutCounter.increment();
+                    throw new PasswordEncoderBusyException("密码哈希排队超时");
+                }
+                return hashTimer.record(operation);
+            });
+        } catch (RejectedExecutionException e) {
+            queueFullCounter.increment();
+            throw new PasswordEncoderBusyException("密码哈希队列已满");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordEncoderBusyException("等待密码哈希时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security.password;
+
+/**
+ * 密码哈希线程池繁忙异常
+ * <p>
+ * 队列已满或排队超时时抛出，由全局处理器转换为 503 响应，提示客户端稍后重试
+ *
+ * @author IAM
+ */
+public class PasswordEncoderBusyException extends RuntimeException {
+
+    public PasswordEncoderBusyException(String message) {
+        super(message);
+    }
+}
@@ -13,19 +13,23 @@
  */
 package com.cxyxh.iam.config.security.userdetails;
 
+import com.cxyxh.iam.config.security.authority.AuthoritySet;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
  * Spring Security 用户详情类
+ * <p>
+ * 除认证所需字段外还携带昵称、头像和租户，登录响应直接由认证结果构建，无需再次查询
  *
  * @author IAM
  */
@@ -36,6 +40,8 @@ public class SecurityUser implements UserDetails {
     
     private static final long serialVersionUID = 1L;
     
+    private static final String ROLE_PREFIX = "ROLE_";
+    
     /**
      * 用户ID
      */
@@ -51,15 +57,36 @@ public class SecurityUser implements UserDetails {
      */
     private String password;
     
+    /**
+     * 密码延迟加载器，从缓存恢复的用户只在校验密码时才读取密码哈希
+     */
+    @Getter(AccessLevel.NONE)
+    private transient Supplier<String> passwordLoader;
+    
     /**
      * 账号状态（是否启用）
      */
     private boolean enabled;
     
     /**
-     * 角色和权限列表
+     * 昵称
      */
-    private List<String> authorities;
+    private String nickname;
+    
+    /**
+     * 头像
+     */
+    private String avatar;
+    
+    /**
+     * 租户ID
+     */
+    private Long tenantId;
+    
+    /**
+     * 角色和权限集合（驻留的共享位图）
+     */
+    private AuthoritySet authoritySet = AuthoritySet.EMPTY;
     
     /**
      * 构造函数
@@ -75,14 +102,78 @@ public class SecurityUser implements UserDetails {
         this.username = username;
         this.password = password;
         this.enabled = enabled;
-        this.authorities = authorities;
+        this.authoritySet = AuthoritySet.of(authorities);
+    }
+    
+    /**
+     * 构造函数
+     *
+     * @param userId       用户ID
+     * @param username     用户名
+     * @param password     密码
+     * @param enabled      是否启用
+     * @param authoritySet 权限集合
+     */
+    public SecurityUser(Long userId, String username, String password, boolean enabled, AuthoritySet authoritySet) {
+        this.userId = userId;
+        this.username = username;
+        this.password = password;
+        this.enabled = enabled;
+        this.authoritySet = authoritySet;
+    }
+    
+    @Override
+    public String getPassword() {
+        if (password == null && passwordLoader != null) {
+            password = passwordLoader.get();
+            passwordLoader = null;
+        }
+        return password;
     }
     
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return authorities.stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        return authoritySet.getGrantedAuthorities();
+    }
+    
+    /**
+     * 角色编码（不含 ROLE_ 前缀）
+     *
+     * @return 角色编码列表
+     */
+    public List<String> getRoles() {
+        List<String> roles = new ArrayList<>();
+        for (String code : authoritySet.getCodes()) {
+            if (code.startsWith(ROLE_PREFIX)) {
+                roles.add(code.substring(ROLE_PREFIX.length()));
+            }
+        }
+        return roles;
+    }
+    
+    /**
+     * 权限编码（不含角色）
+     *
+     * @return 权限编码列表
+     */
+    public List<String> getPermissions() {
+        List<String> permissions = new ArrayList<>();
+        for (String code : authoritySet.getCodes()) {
+            if (!code.startsWith(ROLE_PREFIX)) {
+                permissions.add(code);
+            }
+        }
+        return permissions;
+    }
+    
+    /**
+     * 是否拥有指定权限（位图判断）
+     *
+     * @param authority 权限编码或 ROLE_ 前缀的角色编码
+     * @return 是否拥有
+     */
+    public boolean hasAuthority(String authority) {
+        return authoritySet.contains(authority);
     }
     
     @Override
@@ -0,0 +1,320 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security.userdetails;
+
+import com.cxyxh.iam.config.security.authority.AuthoritySet;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 用户详情两级缓存
+ * <p>
+ * L1 为进程内有界缓存，L2 为 Redis。密码哈希只保存在 L1，L2 快照仅含权限与资料，
+ * 从 L2 恢复的用户只在登录校验密码时才回源读取密码哈希，令牌认证不访问数据库。
+ * 用户信息变更时递增该用户的代数、删除 L2 并通过频道广播，各节点同时清除自己的 L1；
+ * 在事务中调用时延迟到事务提交后执行，避免其他节点在提交前读到旧数据并重新写入缓存。
+ * 回源结果只在代数与加载前一致时写入 L2，失效前开始的加载不会把旧快照写回。
+ * 只缓存加载成功的用户，用户不存在或已禁用时每次都回源。
+ *
+ * @author IAM
+ */
+@Slf4j
+@Component
+public class UserDetailsCache implements MessageListener {
+
+    /**
+     * 失效广播频道
+     */
+    public static final String INVALIDATE_CHANNEL = "iam:channel:user-details";
+
+    /**
+     * L2 缓存键前缀，快照字段变化时升级版本号，旧格式的键自然过期
+     */
+    public static final String KEY_PREFIX = "user:details:v3:";
+
+    /**
+     * L2 代数键前缀，每次失效时递增
+     */
+    public static final String GENERATION_KEY_PREFIX = "user:details:gen:";
+
+    /**
+     * 代数与加载前读到的一致时才写入快照
+     */
+    private static final RedisScript<Long> PUT_IF_CURRENT_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[3] then "
+                    + "return 0 "
+                    + "end "
+                    + "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * 递增代数并删除快照，代数键与快照同样过期
+     */
+    private static final RedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) "
+                    + "redis.call('EXPIRE', KEYS[2], ARGV[1]) "
+                    + "redis.call('DEL', KEYS[1]) "
+                    + "return 1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final long redisExpire;
+    private final Cache<String, CachedUserDetails> localCache;
+    private final Timer loadTimer;
+    private final Counter redisHitCounter;
+    private final Counter redisMissCounter;
+
+    /**
+     * 构造方法
+     *
+     * @param stringRedisTemplate Redis 字符串模板
+     * @param listenerContainer   Redis 消息监听容器
+     * @param objectMapper        JSON 序列化工具
+     * @param meterRegistry       指标注册表
+     * @param localMaxSize        L1 最大条目数
+     * @param localExpire         L1 过期时间（秒），作为丢失广播时的兜底
+     * @param redisExpire         L2 过期时间（秒）
+     */
+    public UserDetailsCache(
+            StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${cache.user-details.local-max-size:10000}") long localMaxSize,
+            @Value("${cache.user-details.local-expire:300}") long localExpire,
+            @Value("${cache.user-permissions.expire:1800}") long redisExpire) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.redisExpire = redisExpire;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localExpire, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "userDetails");
+        this.loadTimer = Timer.builder("iam.user-details.load")
+                .description("缓存未命中时从数据库加载用户详情的耗时")
+                .register(meterRegistry);
+        this.redisHitCounter = Counter.builder("iam.user-details.redis")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.redisMissCounter = Counter.builder("iam.user-details.redis")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 应用启动完成后订阅失效频道
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+        } catch (Exception e) {
+            log.error("订阅用户详情缓存失效频道失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取用户详情，依次查询 L1、L2，都未命中时调用加载器
+     *
+     * @param username       用户名
+     * @param loader         加载器（用户不存在时抛出异常）
+     * @param passwordLoader 密码哈希加载器，从 L2 恢复的用户首次读取密码时调用（用户不存在或已禁用时返回null）
+     * @return 用户详情（每次返回新实例，调用方修改不会影响缓存）
+     */
+    public SecurityUser get(String username, Function<String, SecurityUser> loader,
+                            Function<String, String> passwordLoader) {
+        CachedUserDetails cached = localCache.get(username, key -> loadFromRedis(key, loader));
+        return cached.toSecurityUser(passwordLoader);
+    }
+
+    /**
+     * 使用户详情缓存失效并通知所有节点
+     *
+     * @param username 用户名
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(username);
+                }
+            });
+        } else {
+            doEvict(username);
+        }
+    }
+
+    /**
+     * 接收其他节点的失效广播，消息内容为用户名
+     *
+     * @param message 消息
+     * @param pattern 模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        localCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void doEvict(String username) {
+        localCache.invalidate(username);
+        try {
+            stringRedisTemplate.execute(INVALIDATE_SCRIPT, List.of(KEY_PREFIX + username, GENERATION_KEY_PREFIX + username),
+                    String.valueOf(redisExpire));
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, username);
+        } catch (Exception e) {
+            log.error("清除用户详情缓存失败: {}, {}", username, e.getMessage());
+        }
+    }
+
+    private CachedUserDetails loadFromRedis(String username, Function<String, SecurityUser> loader) {
+        List<String> keys = List.of(KEY_PREFIX + username, GENERATION_KEY_PREFIX + username);
+        // 加载前的代数，读取失败时为null，此时不写回 L2
+        String generation = null;
+        try {
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+            if (values != null) {
+                generation = values.get(1) == null ? "" : values.get(1);
+                if (values.get(0) != null) {
+                    redisHitCounter.increment();
+                    return objectMapper.readValue(values.get(0), CachedUserDetails.class);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取用户详情缓存失败，回源数据库: {}", e.getMessage());
+        }
+        redisMissCounter.increment();
+
+        SecurityUser securityUser = loadTimer.record(() -> loader.apply(username));
+        CachedUserDetails cached = CachedUserDetails.of(securityUser);
+        if (generation == null) {
+            return cached;
+        }
+        try {
+            stringRedisTemplate.execute(PUT_IF_CURRENT_SCRIPT, keys,
+                    objectMapper.writeValueAsString(cached), String.valueOf(redisExpire), generation);
+        } catch (JsonProcessingException e) {
+            log.warn("序列化用户详情失败: {}", e.getMessage());
+        } catch (Exception e) {
+            log.warn("写入用户详情缓存失败: {}", e.getMessage());
+        }
+        return cached;
+    }
+
+    /**
+     * 缓存中保存的用户详情快照
+     */
+    @Data
+    @NoArgsConstructor
+    static class CachedUserDetails {
+
+        private Long userId;
+        private String username;
+
+        /**
+         * 密码哈希，只保留在进程内，不写入 Redis
+         */
+        @JsonIgnore
+        private volatile String password;
+        private boolean enabled;
+        private String nickname;
+        private String avatar;
+        private Long tenantId;
+        private List<String> authorities;
+
+        /**
+         * 驻留的权限集合，不参与序列化
+         */
+        @JsonIgnore
+        private transient AuthoritySet authoritySet;
+
+        CachedUserDetails(Long userId, String username, String password, boolean enabled, List<String> authorities) {
+            this.userId = userId;
+            this.username = username;
+            this.password = password;
+            this.enabled = enabled;
+            this.authorities = authorities;
+        }
+
+        static CachedUserDetails of(SecurityUser securityUser) {
+            CachedUserDetails cached = new CachedUserDetails(securityUser.getUserId(), securityUser.getUsername(),
+                    securityUser.getPassword(), securityUser.isEnabled(), securityUser.getAuthoritySet().getCodes());
+            cached.nickname = securityUser.getNickname();
+            cached.avatar = securityUser.getAvatar();
+            cached.tenantId = securityUser.getTenantId();
+            cached.authoritySet = securityUser.getAuthoritySet();
+            return cached;
+        }
+
+        SecurityUser toSecurityUser(Function<String, String> passwordLoader) {
+            AuthoritySet set = authoritySet;
+            if (set == null) {
+                set = AuthoritySet.of(authorities);
+                authoritySet = set;
+            }
+            SecurityUser securityUser = new SecurityUser(userId, username, password, enabled, set);
+            if (password == null) {
+                // 从 L2 恢复的快照没有密码哈希，首次校验密码时读取并留在 L1 中
+                securityUser.setPasswordLoader(() -> {
+                    String loaded = passwordLoader.apply(username);
+                    if (loaded != null) {
+                        password = loaded;
+                    }
+                    return loaded;
+                });
+            }
+            securityUser.setNickname(nickname);
+            securityUser.setAvatar(avatar);
+            securityUser.setTenantId(tenantId);
+            return securityUser;
+        }
+    }
+}
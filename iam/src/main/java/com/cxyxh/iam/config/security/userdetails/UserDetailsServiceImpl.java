@@ -13,6 +13,7 @@
  */
 package com.cxyxh.iam.config.security.userdetails;
 
+import com.cxyxh.iam.user.dto.UserAuthDTO;
 import com.cxyxh.iam.user.entity.User;
 import com.cxyxh.iam.user.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +23,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -35,6 +37,7 @@ import java.util.List;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserService userService;
+    private final UserDetailsCache userDetailsCache;
     
     // 定义用户状态常量
     private static final int STATUS_ENABLED = 1;
@@ -42,12 +45,38 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // 查询用户
+        return userDetailsCache.get(username, this::loadFromDatabase, this::loadPassword);
+    }
+
+    /**
+     * 从数据库读取可用用户的密码哈希，仅在登录校验密码时调用
+     *
+     * @param username 用户名
+     * @return 密码哈希，用户不存在或已禁用时返回null
+     */
+    private String loadPassword(String username) {
         User user = userService.getUserByUsername(username);
-        if (user == null) {
+        if (user == null || user.getStatus() == STATUS_DISABLED) {
+            return null;
+        }
+        return user.getPassword();
+    }
+
+    /**
+     * 从数据库加载用户详情
+     *
+     * @param username 用户名
+     * @return 安全用户
+     * @throws UsernameNotFoundException 用户不存在或已禁用
+     */
+    private SecurityUser loadFromDatabase(String username) throws UsernameNotFoundException {
+        // 一次查询加载用户、角色和权限
+        UserAuthDTO userAuth = userService.getUserAuthByUsername(username);
+        if (userAuth == null) {
             log.error("用户不存在: {}", username);
             throw new UsernameNotFoundException("用户不存在");
         }
+        User user = userAuth.getUser();
         
         // 如果用户被禁用，抛出异常
         if (user.getStatus() == STATUS_DISABLED) {
@@ -55,20 +84,23 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             throw new UsernameNotFoundException("用户已禁用");
         }
         
-        // 查询用户角色和权限
-        List<String> authorities = userService.getUserPermissions(user.getId());
+        // 权限编码
+        List<String> authorities = new ArrayList<>(userAuth.getPermissions());
         
         // 添加角色权限（ROLE_ 前缀）
-        List<String> roles = userService.getUserRoles(user.getId());
-        roles.forEach(role -> authorities.add("ROLE_" + role));
+        userAuth.getRoles().forEach(role -> authorities.add("ROLE_" + role));
         
-        // 创建安全用户
-        return new SecurityUser(
+        // 创建安全用户，同时带上登录响应所需的资料
+        SecurityUser securityUser = new SecurityUser(
                 user.getId(),
                 user.getUsername(),
                 user.getPassword(),
                 user.getStatus() == STATUS_ENABLED,
                 authorities
         );
+        securityUser.setNickname(user.getNickname());
+        securityUser.setAvatar(user.getAvatar());
+        securityUser.setTenantId(user.getTenantId());
+        return securityUser;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.web;
+
+import com.cxyxh.iam.authn.exception.LoginThrottledException;
+import com.cxyxh.iam.common.api.Result;
+import com.cxyxh.iam.common.api.ResultCode;
+import com.cxyxh.iam.config.security.password.PasswordEncoderBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * 服务繁忙异常处理类
+ * <p>
+ * 将过载保护和限流抛出的异常统一转换为 503/429 响应并附带 Retry-After，便于客户端和网关退避重试
+ *
+ * @author IAM
+ */
+@Slf4j
+@RestControllerAdvice
+public class ServiceBusyExceptionHandler {
+
+    /**
+     * 建议客户端重试间隔（秒）
+     */
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler(PasswordEncoderBusyException.class)
+    public ResponseEntity<Result<Void>> handlePasswordEncoderBusy(PasswordEncoderBusyException e) {
+        log.warn("密码哈希繁忙，拒绝请求: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(Result.failed(ResultCode.SERVICE_UNAVAILABLE));
+    }
+
+    /**
+     * 认证过程中密码哈希繁忙时，异常会被认证提供者包装为 InternalAuthenticationServiceException，
+     * 解开后按繁忙处理；其他原因的认证内部错误仍交由默认处理
+     *
+     * @param e 认证内部异常
+     * @return 503 响应
+     */
+    @ExceptionHandler(InternalAuthenticationServiceException.class)
+    public ResponseEntity<Result<Void>> handleInternalAuthentication(InternalAuthenticationServiceException e) {
+        for (Throwable cause = e.getCause(); cause != null && cause != cause.getCause(); cause = cause.getCause()) {
+            if (cause instanceof PasswordEncoderBusyException busy) {
+                return handlePasswordEncoderBusy(busy);
+            }
+        }
+        throw e;
+    }
+
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<Result<Void>> handleLoginThrottled(LoginThrottledException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Result.failed(ResultCode.TOO_MANY_REQUESTS, e.getMessage()));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.menu.controller;
+
+import com.cxyxh.iam.common.api.Result;
+import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import com.cxyxh.iam.menu.dto.MenuTreeDTO;
+import com.cxyxh.iam.menu.entity.Menu;
+import com.cxyxh.iam.menu.service.MenuService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 菜单控制器
+ *
+ * @author IAM
+ */
+@Tag(name = "菜单管理", description = "菜单相关接口")
+@RestController
+@RequestMapping("/menu")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class MenuController {
+
+    /**
+     * 菜单树因用户而异，只允许客户端缓存，每次使用前用实体标签校验
+     */
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private final MenuService menuService;
+
+    @Operation(summary = "获取当前用户的菜单树")
+    @GetMapping(value = "/tree", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getMenuTree(
+            @AuthenticationPrincipal SecurityUser securityUser,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        MenuTreeDTO tree = menuService.getMenuTree(securityUser.getUserId());
+        if (tree.getEtag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(tree.getEtag())
+                    .cacheControl(CACHE_CONTROL)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(tree.getEtag())
+                .cacheControl(CACHE_CONTROL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(tree.getBody());
+    }
+
+    @Operation(summary = "新增菜单")
+    @PostMapping
+    @PreAuthorize("hasAuthority('menu:add')")
+    public Result<Boolean> saveMenu(@RequestBody Menu menu) {
+        boolean result = menuService.saveMenu(menu);
+        return result ? Result.success(true) : Result.failed("新增失败");
+    }
+
+    @Operation(summary = "更新菜单")
+    @PutMapping
+    @PreAuthorize("hasAuthority('menu:update')")
+    public Result<Boolean> updateMenu(@RequestBody Menu menu) {
+        boolean result = menuService.updateMenu(menu);
+        return result ? Result.success(true) : Result.failed("更新失败，菜单可能不存在");
+    }
+
+    @Operation(summary = "删除菜单")
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasAuthority('menu:delete')")
+    public Result<Boolean> removeMenu(@Parameter(description = "菜单ID") @PathVariable Long id) {
+        boolean result = menuService.removeMenu(id);
+        return result ? Result.success(true) : Result.failed("删除失败，菜单可能不存在");
+    }
+
+    @Operation(summary = "分配角色菜单")
+    @PostMapping("/role/{roleId}")
+    @PreAuthorize("hasAuthority('menu:assign')")
+    public Result<Boolean> assignMenus(
+            @Parameter(description = "角色ID") @PathVariable Long roleId,
+            @Parameter(description = "菜单ID列表") @RequestBody List<Long> menuIds) {
+        boolean result = menuService.assignMenus(roleId, menuIds);
+        return result ? Result.success(true) : Result.failed("分配菜单失败");
+    }
+}
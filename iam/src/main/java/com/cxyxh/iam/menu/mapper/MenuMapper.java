@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.menu.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cxyxh.iam.menu.entity.Menu;
+import org.apache.ibatis.annotations.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 菜单 Mapper 接口
+ *
+ * @author IAM
+ */
+@Repository
+public interface MenuMapper extends BaseMapper<Menu> {
+
+    /**
+     * 查询角色可见的菜单
+     *
+     * @param tenantId 租户ID，为null时表示无租户的菜单
+     * @param roleIds  角色ID集合
+     * @return 菜单列表，按父菜单和显示顺序排序
+     */
+    List<Menu> selectVisibleMenus(@Param("tenantId") Long tenantId, @Param("roleIds") Collection<Long> roleIds);
+
+    /**
+     * 查询角色所属租户
+     *
+     * @param roleId 角色ID
+     * @return 租户ID，无租户或角色不存在时为null
+     */
+    Long selectRoleTenantId(@Param("roleId") Long roleId);
+
+    /**
+     * 查询关联了菜单的角色
+     *
+     * @param menuId 菜单ID
+     * @return 角色ID列表
+     */
+    List<Long> selectRoleIdsByMenuId(@Param("menuId") Long menuId);
+
+    /**
+     * 删除角色的全部菜单关联
+     *
+     * @param roleId 角色ID
+     * @return 删除条数
+     */
+    int deleteRoleMenus(@Param("roleId") Long roleId);
+
+    /**
+     * 为角色关联菜单，只关联与角色同租户且未删除的菜单
+     *
+     * @param roleId  角色ID
+     * @param menuIds 菜单ID集合
+     * @return 插入条数
+     */
+    int insertRoleMenus(@Param("roleId") Long roleId, @Param("menuIds") Collection<Long> menuIds);
+}
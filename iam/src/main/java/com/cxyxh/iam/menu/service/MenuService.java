@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.menu.service;
+
+import com.cxyxh.iam.menu.dto.MenuTreeDTO;
+import com.cxyxh.iam.menu.entity.Menu;
+
+import java.util.List;
+
+/**
+ * 菜单服务接口
+ *
+ * @author IAM
+ */
+public interface MenuService {
+
+    /**
+     * 获取用户可见的菜单树
+     * <p>
+     * 同一租户内角色集合相同的用户共享同一棵预先序列化的菜单树
+     *
+     * @param userId 用户ID
+     * @return 菜单树
+     */
+    MenuTreeDTO getMenuTree(Long userId);
+
+    /**
+     * 新增菜单
+     *
+     * @param menu 菜单
+     * @return 是否成功
+     */
+    boolean saveMenu(Menu menu);
+
+    /**
+     * 更新菜单
+     *
+     * @param menu 菜单
+     * @return 是否成功，菜单不存在时返回false
+     */
+    boolean updateMenu(Menu menu);
+
+    /**
+     * 删除菜单
+     *
+     * @param menuId 菜单ID
+     * @return 是否成功，菜单不存在时返回false
+     */
+    boolean removeMenu(Long menuId);
+
+    /**
+     * 分配角色菜单，只保留与角色同租户的菜单
+     *
+     * @param roleId  角色ID
+     * @param menuIds 菜单ID列表
+     * @return 是否成功
+     */
+    boolean assignMenus(Long roleId, List<Long> menuIds);
+
+    /**
+     * 租户的菜单或角色菜单关联变更后清除该租户的菜单树缓存，并通知所有节点；在事务中调用时延迟到提交后执行
+     *
+     * @param tenantId 租户ID，为null时表示无租户的菜单
+     */
+    void evictTenant(Long tenantId);
+}
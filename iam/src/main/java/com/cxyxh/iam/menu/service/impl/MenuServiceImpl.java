@@ -0,0 +1,407 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.menu.service.impl;
+
+import com.cxyxh.iam.common.api.Result;
+import com.cxyxh.iam.menu.dto.MenuTreeDTO;
+import com.cxyxh.iam.menu.entity.Menu;
+import com.cxyxh.iam.menu.mapper.MenuMapper;
+import com.cxyxh.iam.menu.service.MenuService;
+import com.cxyxh.iam.menu.vo.MenuTreeVO;
+import com.cxyxh.iam.role.service.RolePermissionService;
+import com.cxyxh.iam.user.dto.UserAuthDTO;
+import com.cxyxh.iam.user.service.PermissionVersionService;
+import com.cxyxh.iam.user.service.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 菜单服务实现类
+ * <p>
+ * 菜单树按（租户, 排序后角色ID集合的摘要）缓存，缓存值为序列化后的响应和实体标签。
+ * 用户到（租户, 角色集合）的映射单独缓存，权限版本号变化后重新加载。
+ * 只有租户的菜单或角色菜单关联变更时才在提交后清除该租户的缓存；每次清除递增租户的代数，
+ * 清除前开始构建、清除后才写入的菜单树在读取时按代数识别并丢弃。
+ *
+ * @author IAM
+ */
+@Slf4j
+@Service
+public class MenuServiceImpl implements MenuService, MessageListener {
+
+    /**
+     * 失效广播频道
+     */
+    public static final String INVALIDATE_CHANNEL = "iam:channel:menu-tree";
+
+    private static final String NO_TENANT = "-";
+
+    private final MenuMapper menuMapper;
+    private final UserService userService;
+    private final PermissionVersionService permissionVersionService;
+    private final RolePermissionService rolePermissionService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final Cache<TreeKey, CachedTree> treeCache;
+    private final Cache<Long, UserScope> scopeCache;
+    /**
+     * 租户的缓存代数，键为租户ID字符串，无租户时为 {@link #NO_TENANT}
+     */
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * 构造方法
+     *
+     * @param menuMapper               菜单Mapper
+     * @param userService              用户服务
+     * @param permissionVersionService 用户权限版本服务
+     * @param rolePermissionService    角色权限缓存服务
+     * @param stringRedisTemplate      Redis 字符串模板
+     * @param listenerContainer        Redis 消息监听容器
+     * @param objectMapper             JSON 序列化工具
+     * @param meterRegistry            指标注册表
+     * @param treeMaxSize              菜单树缓存最大条目数
+     * @param treeExpire               菜单树缓存过期时间（秒），作为丢失广播时的兜底
+     * @param scopeMaxSize             用户角色集合缓存最大条目数
+     * @param scopeExpire              用户角色集合缓存过期时间（秒）
+     */
+    public MenuServiceImpl(
+            MenuMapper menuMapper,
+            UserService userService,
+            PermissionVersionService permissionVersionService,
+            RolePermissionService rolePermissionService,
+            StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${cache.menu-tree.local-max-size:1000}") long treeMaxSize,
+            @Value("${cache.menu-tree.local-expire:3600}") long treeExpire,
+            @Value("${cache.menu-tree.user-scope-max-size:10000}") long scopeMaxSize,
+            @Value("${cache.menu-tree.user-scope-expire:300}") long scopeExpire) {
+        this.menuMapper = menuMapper;
+        this.userService = userService;
+        this.permissionVersionService = permissionVersionService;
+        this.rolePermissionService = rolePermissionService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.treeCache = Caffeine.newBuilder()
+                .maximumSize(treeMaxSize)
+                .expireAfterWrite(treeExpire, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, treeCache, "menuTree");
+        this.scopeCache = Caffeine.newBuilder()
+                .maximumSize(scopeMaxSize)
+                .expireAfterWrite(scopeExpire, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 应用启动完成后订阅失效频道
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+        } catch (Exception e) {
+            log.error("订阅菜单树缓存失效频道失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public MenuTreeDTO getMenuTree(Long userId) {
+        UserScope scope = resolveScope(userId);
+        TreeKey key = new TreeKey(scope.tenantId(), fingerprint(scope.roleIds()));
+        AtomicLong generation = generationOf(scope.tenantId());
+        CachedTree cached = treeCache.get(key, k -> new CachedTree(generation.get(), buildTree(scope)));
+        if (cached.generation() != generation.get()) {
+            // 构建期间租户缓存已被清除，丢弃按清除前数据构建的菜单树
+            treeCache.asMap().remove(key, cached);
+            cached = treeCache.get(key, k -> new CachedTree(generation.get(), buildTree(scope)));
+        }
+        return cached.tree();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean saveMenu(Menu menu) {
+        // 新菜单尚未分配给任何角色，不影响已缓存的菜单树
+        return menuMapper.insert(menu) > 0;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updateMenu(Menu menu) {
+        Menu existing = menuMapper.selectById(menu.getId());
+        if (existing == null) {
+            return false;
+        }
+        boolean updated = menuMapper.updateById(menu) > 0;
+        if (updated) {
+            evictTenant(existing.getTenantId());
+            if (menu.getTenantId() != null && !menu.getTenantId().equals(existing.getTenantId())) {
+                evictTenant(menu.getTenantId());
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeMenu(Long menuId) {
+        Menu existing = menuMapper.selectById(menuId);
+        if (existing == null) {
+            return false;
+        }
+        boolean removed = menuMapper.deleteById(menuId) > 0;
+        if (removed) {
+            evictTenant(existing.getTenantId());
+            // 已删除菜单下的权限编码不再授予关联的角色
+            for (Long roleId : menuMapper.selectRoleIdsByMenuId(menuId)) {
+                rolePermissionService.reload(roleId);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean assignMenus(Long roleId, List<Long> menuIds) {
+        Long tenantId = menuMapper.selectRoleTenantId(roleId);
+        menuMapper.deleteRoleMenus(roleId);
+        if (menuIds != null && !menuIds.isEmpty()) {
+            menuMapper.insertRoleMenus(roleId, menuIds);
+        }
+        evictTenant(tenantId);
+        rolePermissionService.reload(roleId);
+        return true;
+    }
+
+    @Override
+    public void evictTenant(Long tenantId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(tenantId);
+                }
+            });
+        } else {
+            doEvict(tenantId);
+        }
+    }
+
+    /**
+     * 接收其他节点的失效广播，消息内容为租户ID
+     *
+     * @param message 消息
+     * @param pattern 模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            evictLocal(NO_TENANT.equals(body) ? null : Long.valueOf(body));
+        } catch (NumberFormatException e) {
+            log.warn("无法解析的菜单树失效消息: {}", body);
+        }
+    }
+
+    private void doEvict(Long tenantId) {
+        evictLocal(tenantId);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, tenantId == null ? NO_TENANT : String.valueOf(tenantId));
+        } catch (Exception e) {
+            log.error("广播菜单树缓存失效失败: {}, {}", tenantId, e.getMessage());
+        }
+    }
+
+    private void evictLocal(Long tenantId) {
+        // 先递增代数再清除，清除时仍在构建的菜单树写入后也会被识别为过期
+        generationOf(tenantId).incrementAndGet();
+        treeCache.asMap().keySet().removeIf(key -> Objects.equals(key.tenantId(), tenantId));
+        log.debug("菜单树缓存已清除, tenantId: {}", tenantId);
+    }
+
+    private AtomicLong generationOf(Long tenantId) {
+        return generations.computeIfAbsent(tenantId == null ? NO_TENANT : String.valueOf(tenantId),
+                k -> new AtomicLong());
+    }
+
+    /**
+     * 解析用户所属租户和排序后的角色ID
+     *
+     * @param userId 用户ID
+     * @return 用户范围
+     */
+    private UserScope resolveScope(Long userId) {
+        long version = permissionVersionService.getVersion(userId);
+        UserScope cached = scopeCache.getIfPresent(userId);
+        if (cached != null && cached.version() == version) {
+            return cached;
+        }
+        UserAuthDTO userAuth = userService.getUserAuth(userId);
+        UserScope scope = userAuth == null
+                ? new UserScope(version, null, new long[0])
+                : new UserScope(version, userAuth.getUser().getTenantId(),
+                        userAuth.getRoleIds().stream().mapToLong(Long::longValue).sorted().distinct().toArray());
+        scopeCache.put(userId, scope);
+        return scope;
+    }
+
+    private MenuTreeDTO buildTree(UserScope scope) {
+        List<MenuTreeVO> roots = new ArrayList<>();
+        if (scope.roleIds().length > 0) {
+            List<Long> roleIds = new ArrayList<>(scope.roleIds().length);
+            for (long roleId : scope.roleIds()) {
+                roleIds.add(roleId);
+            }
+            roots = assemble(menuMapper.selectVisibleMenus(scope.tenantId(), roleIds));
+        }
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(Result.success(roots));
+            return new MenuTreeDTO(body, etag(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化菜单树失败", e);
+        }
+    }
+
+    /**
+     * 组装菜单树，查询结果已按父菜单和显示顺序排序；父菜单不可见的子菜单不会出现在树中
+     *
+     * @param menus 菜单列表
+     * @return 顶级菜单
+     */
+    static List<MenuTreeVO> assemble(List<Menu> menus) {
+        Map<Long, MenuTreeVO> nodes = new HashMap<>(menus.size() * 2);
+        for (Menu menu : menus) {
+            MenuTreeVO node = new MenuTreeVO();
+            node.setId(menu.getId());
+            node.setParentId(menu.getParentId());
+            node.setMenuName(menu.getMenuName());
+            node.setMenuType(menu.getMenuType());
+            node.setPath(menu.getPath());
+            node.setComponent(menu.getComponent());
+            node.setIcon(menu.getIcon());
+            node.setOrderNum(menu.getOrderNum());
+            nodes.put(menu.getId(), node);
+        }
+        List<MenuTreeVO> roots = new ArrayList<>();
+        for (Menu menu : menus) {
+            MenuTreeVO node = nodes.get(menu.getId());
+            Long parentId = menu.getParentId();
+            if (parentId == null || parentId == 0L) {
+                roots.add(node);
+            } else {
+                MenuTreeVO parent = nodes.get(parentId);
+                if (parent != null) {
+                    parent.getChildren().add(node);
+                }
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * 计算角色集合摘要
+     *
+     * @param roleIds 排序后的角色ID
+     * @return 摘要
+     */
+    private static String fingerprint(long[] roleIds) {
+        StringBuilder builder = new StringBuilder(roleIds.length * 4);
+        for (long roleId : roleIds) {
+            builder.append(roleId).append(',');
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(builder.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 计算实体标签
+     *
+     * @param body 响应内容
+     * @return 带引号的实体标签
+     */
+    private static String etag(byte[] body) {
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(body)).substring(0, 16) + "\"";
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 菜单树缓存键
+     *
+     * @param tenantId    租户ID
+     * @param fingerprint 角色集合摘要
+     */
+    private record TreeKey(Long tenantId, String fingerprint) {
+    }
+
+    /**
+     * 缓存的菜单树
+     *
+     * @param generation 开始构建时租户的缓存代数
+     * @param tree       菜单树
+     */
+    private record CachedTree(long generation, MenuTreeDTO tree) {
+    }
+
+    /**
+     * 用户所属租户和排序后的角色ID
+     *
+     * @param version  加载时的权限版本号
+     * @param tenantId 租户ID
+     * @param roleIds  角色ID（升序、去重）
+     */
+    private record UserScope(long version, Long tenantId, long[] roleIds) {
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.menu.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 菜单树节点视图对象
+ *
+ * @author IAM
+ */
+@Data
+@Schema(description = "菜单树节点视图对象")
+public class MenuTreeVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "菜单ID")
+    private Long id;
+
+    @Schema(description = "父菜单ID")
+    private Long parentId;
+
+    @Schema(description = "菜单名称")
+    private String menuName;
+
+    @Schema(description = "菜单类型")
+    private String menuType;
+
+    @Schema(description = "路由地址")
+    private String path;
+
+    @Schema(description = "组件路径")
+    private String component;
+
+    @Schema(description = "图标")
+    private String icon;
+
+    @Schema(description = "显示顺序")
+    private Integer orderNum;
+
+    @Schema(description = "子菜单")
+    private List<MenuTreeVO> children = new ArrayList<>();
+}
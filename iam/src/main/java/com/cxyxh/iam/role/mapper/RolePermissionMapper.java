@@ -0,0 +1,36 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.role.mapper;
+
+import org.apache.ibatis.annotations.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 角色权限 Mapper 接口
+ *
+ * @author IAM
+ */
+@Repository
+public interface RolePermissionMapper {
+
+    /**
+     * 根据角色ID查询权限编码
+     *
+     * @param roleId 角色ID
+     * @return 权限编码列表
+     */
+    List<String> selectPermissionCodes(@Param("roleId") Long roleId);
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.role.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 角色权限缓存服务接口
+ * <p>
+ * 按角色缓存权限编码集合（本地 + Redis），用户权限由所属角色的集合合并得到，无需按用户关联查询
+ *
+ * @author IAM
+ */
+public interface RolePermissionService {
+
+    /**
+     * Redis 缓存键前缀
+     */
+    String KEY_PREFIX = "role:permission:";
+
+    /**
+     * 获取角色的权限编码
+     *
+     * @param roleId 角色ID
+     * @return 权限编码列表（不可变）
+     */
+    List<String> getPermissionCodes(Long roleId);
+
+    /**
+     * 合并多个角色的权限编码
+     *
+     * @param roleIds 角色ID集合
+     * @return 去重后的权限编码列表
+     */
+    List<String> getPermissionCodes(Collection<Long> roleIds);
+
+    /**
+     * 角色的菜单或权限变更后重新加载，并通知所有节点；在事务中调用时延迟到提交后执行
+     *
+     * @param roleId 角色ID
+     */
+    void reload(Long roleId);
+
+    /**
+     * 缓存过期或收到变更通知时在后台重新加载，加载完成前继续使用本地副本
+     *
+     * @param roleId 角色ID
+     */
+    void reloadAsync(Long roleId);
+}
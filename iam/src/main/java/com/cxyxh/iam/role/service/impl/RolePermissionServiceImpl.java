@@ -0,0 +1,226 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.role.service.impl;
+
+import com.cxyxh.iam.role.mapper.RolePermissionMapper;
+import com.cxyxh.iam.role.service.RolePermissionService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 角色权限缓存服务实现类
+ * <p>
+ * Redis 中以逗号分隔的字符串保存角色的权限编码（空角色保存为空串），过期时间带随机抖动避免集中失效。
+ * 键过期事件和变更广播只触发后台刷新，刷新完成前本地副本继续提供服务，请求不会遇到冷启动的未命中。
+ *
+ * @author IAM
+ */
+@Slf4j
+@Service
+public class RolePermissionServiceImpl implements RolePermissionService, MessageListener {
+
+    /**
+     * 变更广播频道
+     */
+    public static final String RELOAD_CHANNEL = "iam:channel:role-permission";
+
+    private static final String SEPARATOR = ",";
+
+    private final RolePermissionMapper rolePermissionMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long redisExpire;
+    private final LoadingCache<Long, List<String>> localCache;
+
+    /**
+     * 构造方法
+     *
+     * @param rolePermissionMapper 角色权限Mapper
+     * @param stringRedisTemplate  Redis 字符串模板
+     * @param listenerContainer    Redis 消息监听容器
+     * @param meterRegistry        指标注册表
+     * @param localMaxSize         本地缓存最大角色数
+     * @param redisExpire          Redis 过期时间（秒），同时作为本地副本的刷新周期
+     */
+    public RolePermissionServiceImpl(
+            RolePermissionMapper rolePermissionMapper,
+            StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            MeterRegistry meterRegistry,
+            @Value("${cache.role-permissions.local-max-size:10000}") long localMaxSize,
+            @Value("${cache.role-permissions.expire:3600}") long redisExpire) {
+        this.rolePermissionMapper = rolePermissionMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.redisExpire = redisExpire;
+        ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "role-permission-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 过期后首次访问触发后台刷新并先返回旧值，作为丢失过期事件或广播时的兜底
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .refreshAfterWrite(redisExpire, TimeUnit.SECONDS)
+                .executor(reloadExecutor)
+                .recordStats()
+                .build(this::loadShared);
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "rolePermissions");
+    }
+
+    /**
+     * 应用启动完成后订阅变更频道
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            listenerContainer.addMessageListener(this, new ChannelTopic(RELOAD_CHANNEL));
+        } catch (Exception e) {
+            log.error("订阅角色权限变更频道失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public List<String> getPermissionCodes(Long roleId) {
+        if (roleId == null) {
+            return Collections.emptyList();
+        }
+        return localCache.get(roleId);
+    }
+
+    @Override
+    public List<String> getPermissionCodes(Collection<Long> roleIds) {
+        if (roleIds == null || roleIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (roleIds.size() == 1) {
+            return getPermissionCodes(roleIds.iterator().next());
+        }
+        Set<String> codes = new LinkedHashSet<>();
+        for (List<String> roleCodes : localCache.getAll(roleIds).values()) {
+            codes.addAll(roleCodes);
+        }
+        return List.copyOf(codes);
+    }
+
+    @Override
+    public void reload(Long roleId) {
+        if (roleId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doReload(roleId);
+                }
+            });
+        } else {
+            doReload(roleId);
+        }
+    }
+
+    @Override
+    public void reloadAsync(Long roleId) {
+        // 只刷新本节点正在使用的角色
+        if (roleId != null && localCache.getIfPresent(roleId) != null) {
+            localCache.refresh(roleId);
+        }
+    }
+
+    /**
+     * 接收变更广播，消息内容为角色ID
+     *
+     * @param message 消息
+     * @param pattern 模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            reloadAsync(Long.valueOf(body));
+        } catch (NumberFormatException e) {
+            log.warn("无法解析的角色权限变更消息: {}", body);
+        }
+    }
+
+    private void doReload(Long roleId) {
+        List<String> codes = loadFromDatabase(roleId);
+        localCache.put(roleId, codes);
+        try {
+            stringRedisTemplate.convertAndSend(RELOAD_CHANNEL, String.valueOf(roleId));
+        } catch (Exception e) {
+            log.error("广播角色权限变更失败: {}, {}", roleId, e.getMessage());
+        }
+    }
+
+    /**
+     * 依次读取 Redis、数据库；刷新时 Redis 中已是其他节点写入的新值则直接使用
+     *
+     * @param roleId 角色ID
+     * @return 权限编码列表
+     */
+    private List<String> loadShared(Long roleId) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(KEY_PREFIX + roleId);
+            if (value != null) {
+                return decode(value);
+            }
+        } catch (Exception e) {
+            log.warn("读取角色权限缓存失败，回源数据库: {}", e.getMessage());
+        }
+        return loadFromDatabase(roleId);
+    }
+
+    private List<String> loadFromDatabase(Long roleId) {
+        List<String> codes = List.copyOf(rolePermissionMapper.selectPermissionCodes(roleId));
+        long expire = redisExpire + ThreadLocalRandom.current().nextLong(Math.max(redisExpire / 10, 1));
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + roleId, String.join(SEPARATOR, codes), expire, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入角色权限缓存失败: {}, {}", roleId, e.getMessage());
+        }
+        log.debug("角色权限已加载, roleId: {}, 权限数: {}", roleId, codes.size());
+        return codes;
+    }
+
+    private static List<String> decode(String value) {
+        return value.isEmpty() ? Collections.emptyList() : List.of(value.split(SEPARATOR));
+    }
+}
@@ -14,6 +14,7 @@
 package com.cxyxh.iam.user.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cxyxh.iam.common.api.CursorPageVO;
 import com.cxyxh.iam.common.api.PageVO;
 import com.cxyxh.iam.common.api.Result;
 import com.cxyxh.iam.user.dto.UserDTO;
@@ -107,6 +108,22 @@ public class UserController {
         return Result.success(new PageVO<>(page));
     }
 
+    @Operation(summary = "游标分页查询用户", description = "首次请求传空游标，之后传上一页返回的 nextCursor")
+    @GetMapping(value = "/page", params = "cursor")
+    @PreAuthorize("hasAuthority('user:list')")
+    public Result<CursorPageVO<UserVO>> pageUserByCursor(
+            @Parameter(description = "分页游标") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数") @RequestParam(defaultValue = "10") Integer size,
+            @Parameter(description = "用户名") @RequestParam(required = false) String username,
+            @Parameter(description = "状态") @RequestParam(required = false) Integer status,
+            @Parameter(description = "是否统计总记录数") @RequestParam(defaultValue = "false") Boolean searchCount) {
+        try {
+            return Result.success(userService.pageUserByCursor(cursor, size, username, status, searchCount));
+        } catch (IllegalArgumentException e) {
+            return Result.failed(e.getMessage());
+        }
+    }
+
     @Operation(summary = "分配角色")
     @PostMapping("/{id}/roles")
     @PreAuthorize("hasAuthority('user:assign')")
@@ -132,4 +149,4 @@ public class UserController {
         List<String> permissions = userService.getUserPermissions(id);
         return Result.success(permissions);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.user.dto;
+
+import com.cxyxh.iam.user.entity.User;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户认证信息（用户和角色一次查询加载，权限编码由角色权限缓存合并得到）
+ *
+ * @author IAM
+ */
+@Data
+public class UserAuthDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 用户
+     */
+    private User user;
+
+    /**
+     * 角色ID列表
+     */
+    private List<Long> roleIds = new ArrayList<>();
+
+    /**
+     * 角色编码列表
+     */
+    private List<String> roles = new ArrayList<>();
+
+    /**
+     * 权限编码列表
+     */
+    private List<String> permissions = new ArrayList<>();
+}
@@ -14,6 +14,7 @@
 package com.cxyxh.iam.user.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cxyxh.iam.user.dto.UserAuthDTO;
 import com.cxyxh.iam.user.entity.User;
 import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
@@ -37,10 +38,18 @@ public interface UserMapper extends BaseMapper<User> {
     List<String> selectUserRoles(@Param("userId") Long userId);
 
     /**
-     * 根据用户ID查询用户权限列表
+     * 根据用户名查询用户认证信息（用户、角色编码、权限编码）
+     *
+     * @param username 用户名
+     * @return 用户认证信息，用户不存在时返回null
+     */
+    UserAuthDTO selectUserAuthByUsername(@Param("username") String username);
+
+    /**
+     * 根据用户ID查询用户认证信息（用户、角色编码、权限编码）
      *
      * @param userId 用户ID
-     * @return 权限编码列表
+     * @return 用户认证信息，用户不存在时返回null
      */
-    List<String> selectUserPermissions(@Param("userId") Long userId);
+    UserAuthDTO selectUserAuthById(@Param("userId") Long userId);
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.user.service;
+
+/**
+ * 用户权限版本服务接口
+ * <p>
+ * 用户的角色、状态发生变化时递增版本号，携带旧版本号的无状态令牌将不再被直接信任
+ *
+ * @author IAM
+ */
+public interface PermissionVersionService {
+
+    /**
+     * 获取用户当前权限版本号
+     *
+     * @param userId 用户ID
+     * @return 版本号，从未变更过时为0
+     */
+    long getVersion(Long userId);
+
+    /**
+     * 递增用户权限版本号，在事务中调用时于提交后生效
+     *
+     * @param userId 用户ID
+     */
+    void increaseVersion(Long userId);
+}
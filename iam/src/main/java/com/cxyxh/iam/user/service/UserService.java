@@ -16,6 +16,8 @@ package com.cxyxh.iam.user.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.cxyxh.iam.common.api.CursorPageVO;
+import com.cxyxh.iam.user.dto.UserAuthDTO;
 import com.cxyxh.iam.user.dto.UserDTO;
 import com.cxyxh.iam.user.entity.User;
 import com.cxyxh.iam.user.vo.UserVO;
@@ -100,6 +102,19 @@ public interface UserService extends IService<User> {
      */
     Page<UserVO> pageUser(Integer current, Integer size, String username, Integer status);
 
+    /**
+     * 游标分页查询用户，按 (创建时间, ID) 倒序向后翻页
+     *
+     * @param cursor      上一页返回的游标，为空时查询第一页
+     * @param size        每页大小，最大500
+     * @param username    用户名
+     * @param status      状态
+     * @param searchCount 是否统计总记录数
+     * @return 分页结果
+     * @throws IllegalArgumentException 游标无效
+     */
+    CursorPageVO<UserVO> pageUserByCursor(String cursor, Integer size, String username, Integer status, boolean searchCount);
+
     /**
      * 获取用户详情
      *
@@ -132,4 +147,20 @@ public interface UserService extends IService<User> {
      * @return 权限编码列表
      */
     List<String> getUserPermissions(Long userId);
-} 
\ No newline at end of file
+
+    /**
+     * 根据用户名获取用户认证信息（用户、角色、权限一次查询）
+     *
+     * @param username 用户名
+     * @return 用户认证信息，用户不存在时返回null
+     */
+    UserAuthDTO getUserAuthByUsername(String username);
+
+    /**
+     * 根据用户ID获取用户认证信息（用户、角色、权限一次查询）
+     *
+     * @param userId 用户ID
+     * @return 用户认证信息，用户不存在时返回null
+     */
+    UserAuthDTO getUserAuth(Long userId);
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.user.service.impl;
+
+import com.cxyxh.iam.user.service.PermissionVersionService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 用户权限版本服务实现类
+ * <p>
+ * 版本号存放在 Redis，本地只缓存很短的时间，令牌在权限变更后最多被信任一个缓存周期。
+ * 在事务中递增时推迟到提交之后，避免其他请求在提交前按旧数据重新加载并缓存
+ *
+ * @author IAM
+ */
+@Slf4j
+@Service
+public class PermissionVersionServiceImpl implements PermissionVersionService {
+
+    private static final String VERSION_KEY_PREFIX = "user:permission-version:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Cache<Long, Long> versionCache;
+
+    /**
+     * 构造方法
+     *
+     * @param stringRedisTemplate Redis模板
+     * @param cacheSeconds        本地缓存时间（秒）
+     */
+    public PermissionVersionServiceImpl(
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${jwt.stateless-principal.version-cache-seconds:5}") long cacheSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.versionCache = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofSeconds(cacheSeconds))
+                .build();
+    }
+
+    @Override
+    public long getVersion(Long userId) {
+        if (userId == null) {
+            return 0L;
+        }
+        return versionCache.get(userId, id -> {
+            String value = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + id);
+            return value == null ? 0L : Long.parseLong(value);
+        });
+    }
+
+    @Override
+    public void increaseVersion(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doIncreaseVersion(userId);
+                }
+            });
+        } else {
+            doIncreaseVersion(userId);
+        }
+    }
+
+    private void doIncreaseVersion(Long userId) {
+        Long version = stringRedisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + userId);
+        versionCache.invalidate(userId);
+        log.debug("用户权限版本已更新, userId: {}, version: {}", userId, version);
+    }
+}
@@ -17,10 +17,16 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.cxyxh.iam.common.api.CursorPageVO;
+import com.cxyxh.iam.common.api.PageCursor;
+import com.cxyxh.iam.config.security.userdetails.UserDetailsCache;
+import com.cxyxh.iam.role.service.RolePermissionService;
 import com.cxyxh.iam.user.convert.UserConvert;
+import com.cxyxh.iam.user.dto.UserAuthDTO;
 import com.cxyxh.iam.user.dto.UserDTO;
 import com.cxyxh.iam.user.entity.User;
 import com.cxyxh.iam.user.mapper.UserMapper;
+import com.cxyxh.iam.user.service.PermissionVersionService;
 import com.cxyxh.iam.user.service.UserService;
 import com.cxyxh.iam.user.vo.UserVO;
 import lombok.RequiredArgsConstructor;
@@ -45,8 +51,17 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
+    /**
+     * 游标分页默认与最大每页条数
+     */
+    private static final int DEFAULT_CURSOR_PAGE_SIZE = 10;
+    private static final int MAX_CURSOR_PAGE_SIZE = 500;
+
     private final UserConvert userConvert;
     private final PasswordEncoder passwordEncoder;
+    private final PermissionVersionService permissionVersionService;
+    private final UserDetailsCache userDetailsCache;
+    private final RolePermissionService rolePermissionService;
 
     @Override
     public User getUserByUsername(String username) {
@@ -132,6 +147,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             this.assignRoles(user.getId(), userDTO.getRoleIds());
         }
         
+        // 用户信息变更后使令牌中携带的主体和用户详情缓存失效
+        if (updated) {
+            permissionVersionService.increaseVersion(user.getId());
+            userDetailsCache.evict(existingUser.getUsername());
+        }
+        
         return updated;
     }
 
@@ -147,7 +168,15 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // roleService.removeUserRoles(userId);
         
         // 删除用户
-        return this.removeById(userId);
+        User user = this.getById(userId);
+        boolean removed = this.removeById(userId);
+        if (removed) {
+            permissionVersionService.increaseVersion(userId);
+            if (user != null) {
+                userDetailsCache.evict(user.getUsername());
+            }
+        }
+        return removed;
     }
 
     @Override
@@ -160,7 +189,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         user.setId(userId);
         user.setStatus(status);
         
-        return this.updateById(user);
+        boolean updated = this.updateById(user);
+        if (updated) {
+            permissionVersionService.increaseVersion(userId);
+            evictUserDetails(userId);
+        }
+        return updated;
     }
 
     @Override
@@ -173,7 +207,11 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         user.setId(userId);
         user.setPassword(passwordEncoder.encode(password));
         
-        return this.updateById(user);
+        boolean updated = this.updateById(user);
+        if (updated) {
+            evictUserDetails(userId);
+        }
+        return updated;
     }
 
     @Override
@@ -203,23 +241,70 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         return (Page<UserVO>) pageUser(page, username, status);
     }
 
+    @Override
+    public CursorPageVO<UserVO> pageUserByCursor(String cursor, Integer size, String username, Integer status,
+                                                 boolean searchCount) {
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = size == null || size < 1 ? DEFAULT_CURSOR_PAGE_SIZE : Math.min(size, MAX_CURSOR_PAGE_SIZE);
+
+        CursorPageVO<UserVO> result = new CursorPageVO<>();
+        result.setSize((long) pageSize);
+        if (searchCount) {
+            result.setTotal(this.count(userQuery(username, status)));
+        }
+
+        // 从上一页最后一条记录之后继续查找，走 (create_time, id) 索引范围扫描而非 OFFSET 跳过
+        LambdaQueryWrapper<User> queryWrapper = userQuery(username, status);
+        if (after != null) {
+            queryWrapper.and(w -> w.lt(User::getCreateTime, after.getCreateTime())
+                    .or(o -> o.eq(User::getCreateTime, after.getCreateTime()).lt(User::getId, after.getId())));
+        }
+        queryWrapper.orderByDesc(User::getCreateTime, User::getId);
+
+        // 多取一条判断是否还有下一页，不执行 COUNT
+        List<User> users = this.page(new Page<>(1, pageSize + 1, false), queryWrapper).getRecords();
+        boolean hasMore = users.size() > pageSize;
+        if (hasMore) {
+            users = users.subList(0, pageSize);
+            User last = users.get(pageSize - 1);
+            result.setNextCursor(new PageCursor(last.getCreateTime(), last.getId()).encode());
+        }
+        result.setHasMore(hasMore);
+        result.setRecords(users.stream().map(userConvert::entityToVO).collect(Collectors.toList()));
+        return result;
+    }
+
+    /**
+     * 构建用户列表过滤条件
+     *
+     * @param username 用户名
+     * @param status   状态
+     * @return 查询条件
+     */
+    private LambdaQueryWrapper<User> userQuery(String username, Integer status) {
+        return new LambdaQueryWrapper<User>()
+                .like(StringUtils.hasText(username), User::getUsername, username)
+                .eq(status != null, User::getStatus, status);
+    }
+
     @Override
     public UserVO getUserDetail(Long userId) {
         if (userId == null) {
             return null;
         }
         
-        User user = this.getById(userId);
-        if (user == null) {
+        // 一次查询加载用户、角色和权限
+        UserAuthDTO userAuth = this.getUserAuth(userId);
+        if (userAuth == null) {
             return null;
         }
         
         // 转换为VO
-        UserVO userVO = userConvert.entityToVO(user);
+        UserVO userVO = userConvert.entityToVO(userAuth.getUser());
         
         // 设置角色和权限
-        userVO.setRoles(this.getUserRoles(userId));
-        userVO.setPermissions(this.getUserPermissions(userId));
+        userVO.setRoles(userAuth.getRoles());
+        userVO.setPermissions(userAuth.getPermissions());
         
         // 可以在这里设置租户名称等
         // userVO.setTenantName(tenantService.getTenantName(user.getTenantId()));
@@ -250,6 +335,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         //     userRoleMapper.batchInsert(userRoles);
         // }
         
+        // 角色变更后使令牌中携带的权限和用户详情缓存失效
+        permissionVersionService.increaseVersion(userId);
+        evictUserDetails(userId);
+        
         return true;
     }
 
@@ -266,6 +355,49 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (userId == null) {
             return new ArrayList<>();
         }
-        return baseMapper.selectUserPermissions(userId);
+        // 与登录、用户详情相同，由所属角色的缓存权限合并
+        UserAuthDTO userAuth = this.getUserAuth(userId);
+        return userAuth == null ? new ArrayList<>() : userAuth.getPermissions();
+    }
+
+    @Override
+    public UserAuthDTO getUserAuthByUsername(String username) {
+        if (!StringUtils.hasText(username)) {
+            return null;
+        }
+        return withPermissions(baseMapper.selectUserAuthByUsername(username));
+    }
+
+    @Override
+    public UserAuthDTO getUserAuth(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        return withPermissions(baseMapper.selectUserAuthById(userId));
+    }
+
+    /**
+     * 合并用户所属角色的缓存权限
+     *
+     * @param userAuth 用户认证信息
+     * @return 用户认证信息
+     */
+    private UserAuthDTO withPermissions(UserAuthDTO userAuth) {
+        if (userAuth != null) {
+            userAuth.setPermissions(new ArrayList<>(rolePermissionService.getPermissionCodes(userAuth.getRoleIds())));
+        }
+        return userAuth;
+    }
+
+    /**
+     * 使用户详情缓存失效
+     *
+     * @param userId 用户ID
+     */
+    private void evictUserDetails(Long userId) {
+        User user = this.getById(userId);
+        if (user != null) {
+            userDetailsCache.evict(user.getUsername());
+        }
     }
-} 
\ No newline at end of file
+}
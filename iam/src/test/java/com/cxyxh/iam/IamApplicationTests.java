@@ -22,7 +22,8 @@ import org.springframework.test.context.TestPropertySource;
     "spring.main.allow-bean-definition-overriding=true",
     "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration," + 
             "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration," +
-            "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration"
+            "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration," +
+            "org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration"
 })
 class IamApplicationTests {
 
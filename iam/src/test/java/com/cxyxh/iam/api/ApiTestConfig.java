@@ -17,6 +17,7 @@ import com.cxyxh.iam.authn.service.JwtService;
 import com.cxyxh.iam.config.security.userdetails.SecurityUser;
 import com.cxyxh.iam.config.security.userdetails.UserDetailsServiceImpl;
 import com.cxyxh.iam.user.service.UserService;
+import io.jsonwebtoken.Jwts;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
@@ -81,6 +82,7 @@ public class ApiTestConfig {
         
         // 避免循环引用和栈溢出
         doReturn(true).when(mockJwtService).validateToken(anyString());
+        doReturn(Jwts.claims().setSubject(TEST_USERNAME)).when(mockJwtService).parseToken(anyString());
         doReturn(TEST_USERNAME).when(mockJwtService).getUsernameFromToken(anyString());
         doReturn(TEST_USER_ID).when(mockJwtService).getUserIdFromToken(anyString());
         
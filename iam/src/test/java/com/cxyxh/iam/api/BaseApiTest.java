@@ -18,6 +18,7 @@ import com.cxyxh.iam.authn.service.JwtService;
 import com.cxyxh.iam.config.security.userdetails.SecurityUser;
 import com.cxyxh.iam.user.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -86,7 +87,9 @@ public abstract class BaseApiTest {
         tokenDTO.setExpiresIn(300L);
         
         when(jwtService.generateToken(anyString(), anyLong())).thenReturn(tokenDTO);
+        when(jwtService.generateToken(any(SecurityUser.class))).thenReturn(tokenDTO);
         when(jwtService.validateToken(anyString())).thenReturn(true);
+        when(jwtService.parseToken(anyString())).thenReturn(Jwts.claims().setSubject(TEST_USERNAME));
         when(jwtService.getUsernameFromToken(anyString())).thenReturn(TEST_USERNAME);
         when(jwtService.getUserIdFromToken(anyString())).thenReturn(TEST_USER_ID);
     }
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.captcha;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptchaPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger rendered = new AtomicInteger();
+
+    @Test
+    void take_EmptyPool_RendersSynchronously() {
+        CaptchaPool pool = new CaptchaPool("test", this::render, 4, 1000, meterRegistry);
+
+        CaptchaImage captcha = pool.take();
+
+        assertEquals("C1", captcha.getCode());
+        assertEquals(1, meterRegistry.get("iam.captcha.pool").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void start_FillsPoolUpToCapacity() throws InterruptedException {
+        CaptchaPool pool = new CaptchaPool("test", this::render, 4, 1000, meterRegistry);
+        pool.start();
+        try {
+            awaitSize(pool, 4);
+            Thread.sleep(50);
+
+            assertEquals(4, pool.size());
+            assertEquals(4, meterRegistry.get("iam.captcha.pool.size").gauge().value());
+            assertTrue(rendered.get() <= 5, "池满后后台线程应阻塞而不是继续渲染");
+        } finally {
+            pool.stop();
+        }
+    }
+
+    @Test
+    void take_FilledPool_ServesEachCaptchaOnce() throws InterruptedException {
+        CaptchaPool pool = new CaptchaPool("test", this::render, 4, 1000, meterRegistry);
+        pool.start();
+        awaitSize(pool, 4);
+        pool.stop();
+
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(codes.add(pool.take().getCode()));
+        }
+        assertEquals(4, meterRegistry.get("iam.captcha.pool").tag("result", "hit").counter().count());
+    }
+
+    private CaptchaImage render() {
+        int n = rendered.incrementAndGet();
+        return new CaptchaImage("C" + n, "data:image/png;base64,AA==");
+    }
+
+    private static void awaitSize(CaptchaPool pool, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.size() < expected) {
+            assertTrue(System.nanoTime() < deadline, "验证码池未在预期时间内填满");
+            Thread.sleep(5);
+        }
+    }
+}
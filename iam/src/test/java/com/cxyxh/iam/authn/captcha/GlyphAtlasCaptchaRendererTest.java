@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.captcha;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlyphAtlasCaptchaRendererTest {
+
+    private final GlyphAtlasCaptchaRenderer renderer = new GlyphAtlasCaptchaRenderer(200, 60);
+
+    @Test
+    void render_ProducesPngDataUriWithInk() throws IOException {
+        String dataUri = renderer.render("K7pX");
+
+        assertTrue(dataUri.startsWith("data:image/png;base64,"));
+        byte[] png = Base64.getDecoder().decode(dataUri.substring(dataUri.indexOf(',') + 1));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(200, image.getWidth());
+        assertEquals(60, image.getHeight());
+
+        int inked = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int rgb = image.getRGB(x, y) & 0xFFFFFF;
+                assertNotEquals(0xC0C0C0, rgb, "干扰线不能使用单独的灰色");
+                if (rgb != 0xFFFFFF) {
+                    inked++;
+                }
+            }
+        }
+        assertTrue(inked > 200, "应绘制出字符");
+    }
+
+    @Test
+    void drawGlyphs_SameCode_DiffersAtGlyphPixels() {
+        byte[] first = new byte[200 * 60];
+        byte[] second = new byte[200 * 60];
+
+        renderer.drawGlyphs(first, "K7pX");
+        renderer.drawGlyphs(second, "K7pX");
+
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    void drawGlyphs_SameCharacter_ProducesMoreShapesThanAtlasVariants() {
+        // 去掉位置和颜色后比较字形轮廓，固定遮罩最多只有角度数种
+        Set<String> shapes = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            byte[] pixels = new byte[200 * 60];
+            renderer.drawGlyphs(pixels, "K");
+            shapes.add(shape(pixels, 200, 60));
+        }
+
+        assertTrue(shapes.size() > GlyphAtlasCaptchaRenderer.ANGLES.length * 2,
+                "同一字符的绘制结果应逐次形变: " + shapes.size());
+    }
+
+    @Test
+    void render_UnsupportedCharacter_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> renderer.render("A-B"));
+    }
+
+    /**
+     * 裁剪到包围盒后的二值轮廓
+     */
+    private static String shape(byte[] pixels, int width, int height) {
+        int minX = width, minY = height, maxX = -1, maxY = -1;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (pixels[y * width + x] != 0) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        StringBuilder shape = new StringBuilder();
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                shape.append(pixels[y * width + x] != 0 ? '#' : '.');
+            }
+            shape.append('\n');
+        }
+        return shape.toString();
+    }
+}
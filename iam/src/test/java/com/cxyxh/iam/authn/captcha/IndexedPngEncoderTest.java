@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.captcha;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedPngEncoderTest {
+
+    @Test
+    void encode_SmallPalette_DecodesToSamePixels() throws IOException {
+        int[] palette = {0xFFFFFF, 0xC0C0C0, 0x1E3A5F};
+        // 宽度不是每字节像素数的整数倍，检查行尾填充
+        int width = 5;
+        int height = 3;
+        byte[] pixels = {
+                0, 1, 2, 1, 0,
+                2, 2, 0, 0, 1,
+                1, 0, 2, 0, 2
+        };
+
+        BufferedImage image = decode(IndexedPngEncoder.encode(pixels, width, height, palette));
+
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(palette[pixels[y * width + x]], image.getRGB(x, y) & 0xFFFFFF, "像素 " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void encode_LargePalette_UsesEightBitDepth() throws IOException {
+        int[] palette = new int[20];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = i * 0x0A0A0A;
+        }
+        byte[] pixels = new byte[40];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) (i % palette.length);
+        }
+
+        BufferedImage image = decode(IndexedPngEncoder.encode(pixels, 8, 5, palette));
+
+        assertEquals(palette[19], image.getRGB(3, 2) & 0xFFFFFF);
+        assertEquals(8, IndexedPngEncoder.bitDepth(palette.length));
+    }
+
+    @Test
+    void bitDepth_MatchesPaletteSize() {
+        assertEquals(1, IndexedPngEncoder.bitDepth(2));
+        assertEquals(2, IndexedPngEncoder.bitDepth(4));
+        assertEquals(4, IndexedPngEncoder.bitDepth(14));
+        assertEquals(8, IndexedPngEncoder.bitDepth(17));
+    }
+
+    private static BufferedImage decode(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(image, "输出应为合法 PNG");
+        return image;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.captcha;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SvgCaptchaRendererTest {
+
+    /**
+     * 与验证码服务生成验证码使用的字符集一致
+     */
+    private static final String CODE_CHARS = "23456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghjkmnpqrstuvwxyz";
+
+    private final SvgCaptchaRenderer renderer = new SvgCaptchaRenderer(200, 60);
+
+    @Test
+    void supports_AllCodeCharacters() {
+        for (char c : CODE_CHARS.toCharArray()) {
+            assertTrue(SvgCaptchaRenderer.supports(c), "缺少字符模板: " + c);
+        }
+    }
+
+    @Test
+    void render_ProducesSvgDataUriWithSharedPaths() {
+        String svg = decode(renderer.render("K7pX"));
+
+        assertTrue(svg.startsWith("<svg ") && svg.endsWith("</svg>"));
+        assertTrue(svg.contains("width='200' height='60'"));
+        int paths = count(svg, "<path ");
+        assertTrue(paths >= 1 && paths <= SvgCaptchaRenderer.PATH_COUNT, "字符不再各自对应一条路径");
+    }
+
+    @Test
+    void render_DataUri_EscapesSpecialCharacters() {
+        String dataUri = renderer.render("K7pX");
+
+        assertTrue(dataUri.startsWith("data:image/svg+xml;charset=utf-8,"));
+        String body = dataUri.substring(dataUri.indexOf(',') + 1);
+        assertFalse(body.contains("<") || body.contains("#"), "data URI 中的特殊字符应转义");
+    }
+
+    @Test
+    void render_AllStrokes_UseInkColoursAndLineSegments() {
+        String svg = decode(renderer.render("K7pX"));
+        Set<String> inks = Set.of(SvgCaptchaRenderer.INKS);
+
+        Matcher stroke = Pattern.compile("stroke='([^']*)'").matcher(svg);
+        while (stroke.find()) {
+            assertTrue(inks.contains(stroke.group(1)), "干扰线不能用单独的颜色区分: " + stroke.group(1));
+        }
+        Matcher data = Pattern.compile("d='([^']*)'").matcher(svg);
+        int segments = 0;
+        while (data.find()) {
+            assertTrue(data.group(1).matches("(M-?\\d+ -?\\d+L-?\\d+ -?\\d+)+"), "只允许独立的 M/L 线段");
+            segments += count(data.group(1), "M");
+        }
+        // K、7、P、X 的模板共 13 条线段，其余为诱饵和干扰线
+        assertTrue(segments > 13 + 4 * 2, "应混入诱饵线段和干扰线: " + segments);
+    }
+
+    @Test
+    void render_SameCode_IsRandomized() {
+        assertNotEquals(renderer.render("ABCD"), renderer.render("ABCD"));
+    }
+
+    @Test
+    void render_UnsupportedCharacter_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> renderer.render("A-B"));
+    }
+
+    private static String decode(String dataUri) {
+        String body = dataUri.substring(dataUri.indexOf(',') + 1);
+        return URLDecoder.decode(body.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service.impl;
+
+import com.cxyxh.iam.authn.dto.LoginDTO;
+import com.cxyxh.iam.authn.service.CaptchaService;
+import com.cxyxh.iam.authn.service.ChallengeService;
+import com.cxyxh.iam.authn.service.JwtService;
+import com.cxyxh.iam.authn.service.LoginThrottleService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuthServiceImplTest {
+
+    private AuthenticationManager authenticationManager;
+    private ChallengeService challengeService;
+    private AuthServiceImpl authService;
+
+    @BeforeEach
+    void setUp() {
+        authenticationManager = mock(AuthenticationManager.class);
+        challengeService = mock(ChallengeService.class);
+        authService = new AuthServiceImpl(authenticationManager, mock(JwtService.class), mock(LoginThrottleService.class),
+                mock(CaptchaService.class), challengeService);
+    }
+
+    @Test
+    void login_FailureRateAboveThresholdWithoutProof_RejectedBeforeAuthentication() {
+        when(challengeService.isRequired()).thenReturn(true);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> authService.login(login()));
+
+        assertEquals("请先完成工作量证明", e.getMessage());
+        verifyNoInteractions(authenticationManager);
+    }
+
+    @Test
+    void login_FailureRateBelowThresholdWithoutProof_Authenticates() {
+        when(challengeService.isRequired()).thenReturn(false);
+        when(authenticationManager.authenticate(any(Authentication.class)))
+                .thenThrow(new BadCredentialsException("bad"));
+
+        assertThrows(IllegalArgumentException.class, () -> authService.login(login()));
+
+        // 不要求证明时照常校验密码，失败计入速率窗口
+        verify(authenticationManager).authenticate(any(Authentication.class));
+        verify(challengeService).recordFailedLogin();
+        verify(challengeService, never()).verify(any(), any());
+    }
+
+    @Test
+    void login_InvalidProof_RejectedEvenWhenNotRequired() {
+        when(challengeService.verify("c1", "s1")).thenReturn(false);
+        LoginDTO loginDTO = login();
+        loginDTO.setChallengeId("c1");
+        loginDTO.setChallengeSolution("s1");
+
+        assertThrows(IllegalArgumentException.class, () -> authService.login(loginDTO));
+
+        verifyNoInteractions(authenticationManager);
+    }
+
+    private static LoginDTO login() {
+        LoginDTO loginDTO = new LoginDTO();
+        loginDTO.setUsername("alice");
+        loginDTO.setPassword("secret");
+        loginDTO.setClientIp("10.0.0.1");
+        return loginDTO;
+    }
+}
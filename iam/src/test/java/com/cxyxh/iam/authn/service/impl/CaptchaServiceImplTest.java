@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service.impl;
+
+import com.cxyxh.iam.authn.dto.CaptchaDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CaptchaServiceImplTest {
+
+    /**
+     * 模拟 Redis 中的字符串键值
+     */
+    private final Map<String, String> redisValues = new ConcurrentHashMap<>();
+
+    private ValueOperations<String, String> valueOperations;
+    private CaptchaServiceImpl captchaService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        valueOperations = mock(ValueOperations.class);
+        doAnswer(invocation -> redisValues.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        when(valueOperations.getAndDelete(anyString()))
+                .thenAnswer(invocation -> redisValues.remove(invocation.<String>getArgument(0)));
+
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        captchaService = new CaptchaServiceImpl(stringRedisTemplate, code -> "image:" + code, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(captchaService, "captchaExpiration", 300L);
+        ReflectionTestUtils.setField(captchaService, "codeLength", 4);
+    }
+
+    @Test
+    void generateCaptcha_StoresCodeAndReturnsRenderedImage() {
+        CaptchaDTO captcha = captchaService.generateCaptcha();
+
+        String code = redisValues.get("captcha:" + captcha.getCaptchaId());
+        assertNotNull(code);
+        assertEquals(4, code.length());
+        assertEquals("image:" + code, captcha.getCaptchaImage());
+        assertTrue(captcha.getExpireTime() > System.currentTimeMillis());
+    }
+
+    @Test
+    void validateCaptcha_CorrectCode_ConsumedOnce() {
+        CaptchaDTO captcha = captchaService.generateCaptcha();
+        String code = redisValues.get("captcha:" + captcha.getCaptchaId());
+
+        assertTrue(captchaService.validateCaptcha(captcha.getCaptchaId(), code.toLowerCase()));
+        assertFalse(captchaService.validateCaptcha(captcha.getCaptchaId(), code), "验证码不能重复使用");
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    void validateCaptcha_WrongCode_StillConsumed() {
+        CaptchaDTO captcha = captchaService.generateCaptcha();
+        String code = redisValues.get("captcha:" + captcha.getCaptchaId());
+
+        assertFalse(captchaService.validateCaptcha(captcha.getCaptchaId(), "wrong"));
+        assertFalse(captchaService.validateCaptcha(captcha.getCaptchaId(), code), "猜错一次后验证码即失效");
+    }
+
+    @Test
+    void validateCaptcha_BlankInput_SkipsRedis() {
+        assertFalse(captchaService.validateCaptcha("", "abcd"));
+        assertFalse(captchaService.validateCaptcha("id", null));
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    void destroy_PoolStarted_StopsRefillThread() {
+        ReflectionTestUtils.setField(captchaService, "poolSize", 2);
+        ReflectionTestUtils.setField(captchaService, "poolRefillRate", 100);
+        captchaService.onApplicationReady();
+        assertTrue(refillThreadAlive(), "启动后应存在预渲染线程");
+
+        captchaService.destroy();
+
+        // 容器关闭后预渲染线程应已退出，请求线程仍可同步渲染
+        assertFalse(refillThreadAlive());
+        assertNotNull(captchaService.generateCaptcha());
+    }
+
+    private static boolean refillThreadAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> "captcha-pool-captcha".equals(thread.getName()) && thread.isAlive());
+    }
+}
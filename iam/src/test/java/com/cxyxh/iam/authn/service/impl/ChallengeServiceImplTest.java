@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service.impl;
+
+import com.cxyxh.iam.authn.dto.ChallengeDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChallengeServiceImplTest {
+
+    /**
+     * 模拟 Redis 中的字符串键值
+     */
+    private final Map<String, String> redisValues = new ConcurrentHashMap<>();
+
+    private ValueOperations<String, String> valueOperations;
+    private ChallengeServiceImpl challengeService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        valueOperations = mock(ValueOperations.class);
+        doAnswer(invocation -> redisValues.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        when(valueOperations.getAndDelete(anyString()))
+                .thenAnswer(invocation -> redisValues.remove(invocation.<String>getArgument(0)));
+
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        // 低难度便于测试中暴力求解
+        challengeService = new ChallengeServiceImpl(stringRedisTemplate, new SimpleMeterRegistry(), 120, 8, 12, 10, 60);
+    }
+
+    @Test
+    void verify_ValidSolution_PassesOnlyOnce() {
+        ChallengeDTO challenge = challengeService.issueChallenge();
+        assertEquals(8, challenge.getDifficulty());
+        assertEquals("SHA-256", challenge.getAlgorithm());
+
+        String solution = solve(challenge);
+
+        assertTrue(challengeService.verify(challenge.getChallengeId(), solution));
+        assertFalse(challengeService.verify(challenge.getChallengeId(), solution), "挑战不能重复使用");
+    }
+
+    @Test
+    void verify_InsufficientWork_RejectedWithoutRedis() {
+        ChallengeDTO challenge = challengeService.issueChallenge();
+        String bad = null;
+        for (int i = 0; bad == null; i++) {
+            if (ChallengeServiceImpl.leadingZeroBits(challenge.getChallengeId() + ":" + i) < 8) {
+                bad = String.valueOf(i);
+            }
+        }
+
+        assertFalse(challengeService.verify(challenge.getChallengeId(), bad));
+        verify(valueOperations, never()).getAndDelete(anyString());
+    }
+
+    @Test
+    void verify_UnknownChallenge_Rejected() {
+        ChallengeDTO challenge = challengeService.issueChallenge();
+        String solution = solve(challenge);
+        redisValues.clear();
+
+        assertFalse(challengeService.verify(challenge.getChallengeId(), solution));
+    }
+
+    @Test
+    void isRequired_OnlyAfterFailureThreshold() {
+        for (int i = 0; i < 9; i++) {
+            challengeService.recordFailedLogin();
+        }
+        assertFalse(challengeService.isRequired());
+        assertFalse(challengeService.issueChallenge().getRequired());
+
+        challengeService.recordFailedLogin();
+        assertTrue(challengeService.isRequired(), "失败数达到阈值后必须携带工作量证明");
+        assertTrue(challengeService.issueChallenge().getRequired());
+    }
+
+    @Test
+    void getDifficulty_RisesWithFailedLogins() {
+        assertEquals(8, challengeService.getDifficulty());
+
+        for (int i = 0; i < 10; i++) {
+            challengeService.recordFailedLogin();
+        }
+        assertEquals(9, challengeService.getDifficulty());
+
+        for (int i = 0; i < 30; i++) {
+            challengeService.recordFailedLogin();
+        }
+        assertEquals(11, challengeService.getDifficulty());
+
+        for (int i = 0; i < 1000; i++) {
+            challengeService.recordFailedLogin();
+        }
+        assertEquals(12, challengeService.getDifficulty(), "难度不超过上限");
+    }
+
+    @Test
+    void leadingZeroBits_CountsAcrossBytes() {
+        // SHA-256("") = e3b0c442...，首字节 0xE3 无前导零
+        assertEquals(0, ChallengeServiceImpl.leadingZeroBits(""));
+    }
+
+    private static String solve(ChallengeDTO challenge) {
+        for (int i = 0; ; i++) {
+            String candidate = String.valueOf(i);
+            if (ChallengeServiceImpl.leadingZeroBits(challenge.getChallengeId() + ":" + candidate) >= challenge.getDifficulty()) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service.impl;
+
+import com.cxyxh.iam.authn.dto.JwksDTO;
+import com.cxyxh.iam.authn.service.TokenBlacklistService;
+import com.cxyxh.iam.user.service.PermissionVersionService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JwtKeyServiceImplTest {
+
+    private static final String KEY = JwtKeyServiceImpl.KEY_RING_KEY;
+    private static final String WRAPPED_KEY = JwtKeyServiceImpl.WRAPPED_KEY_RING_KEY;
+    private static final String KEK = Base64.getEncoder().encodeToString(new byte[32]);
+
+    /**
+     * 模拟 Redis 中的公钥哈希
+     */
+    private final Map<String, String> redisHash = new ConcurrentHashMap<>();
+
+    /**
+     * 模拟 Redis 中的包装私钥哈希
+     */
+    private final Map<String, String> wrappedHash = new ConcurrentHashMap<>();
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(hashOperations.hasKey(eq(KEY), anyString()))
+                .thenAnswer(invocation -> redisHash.containsKey(invocation.<String>getArgument(1)));
+        when(hashOperations.entries(KEY)).thenAnswer(invocation -> new HashMap<Object, Object>(redisHash));
+        when(hashOperations.entries(WRAPPED_KEY)).thenAnswer(invocation -> new HashMap<Object, Object>(wrappedHash));
+
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        doReturn(hashOperations).when(stringRedisTemplate).opsForHash();
+        // 模拟创建密钥脚本：公钥 HSETNX 成功时写入包装私钥
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(Arrays.asList(KEY, WRAPPED_KEY)), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    String kid = invocation.getArgument(2);
+                    if (redisHash.putIfAbsent(kid, invocation.getArgument(3)) != null) {
+                        return 0L;
+                    }
+                    wrappedHash.put(kid, invocation.getArgument(4));
+                    return 1L;
+                });
+    }
+
+    @Test
+    void hmacMode_ShouldNotTouchRedisAndPublishEmptyJwks() {
+        // 准备
+        JwtKeyServiceImpl keyService = new JwtKeyServiceImpl(stringRedisTemplate, "HS512", 604800, 3600, null);
+        
+        // 验证
+        assertFalse(keyService.isEnabled());
+        assertNull(keyService.getActiveKeyId());
+        assertNull(keyService.getPublicKey("k1"));
+        assertEquals("{\"keys\":[]}", new String(keyService.getJwks().getBody(), StandardCharsets.UTF_8));
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void es256Mode_ShouldPublishCurrentAndNextKeyWithStableEtag() {
+        // 准备
+        JwtKeyServiceImpl keyService = new JwtKeyServiceImpl(stringRedisTemplate, "ES256", 604800, 3600, KEK);
+        
+        // 执行
+        String kid = keyService.getActiveKeyId();
+        JwksDTO first = keyService.getJwks();
+        JwksDTO second = keyService.getJwks();
+        
+        // 验证当前周期和下一周期的公钥都已发布，且文档只序列化一次
+        long period = Long.parseLong(kid.substring(1));
+        String body = new String(first.getBody(), StandardCharsets.UTF_8);
+        assertTrue(body.contains("\"kid\":\"" + kid + "\""));
+        assertTrue(body.contains("\"kid\":\"k" + (period + 1) + "\""));
+        assertTrue(body.contains("\"crv\":\"P-256\""));
+        assertSame(first, second);
+        assertEquals(2, redisHash.size());
+    }
+
+    @Test
+    void es256Tokens_ShouldVerifyOnOtherNodesAndWithPublicKeyOnly() {
+        // 准备：两个节点共享同一个 Redis 密钥环
+        JwtKeyServiceImpl nodeAKeys = new JwtKeyServiceImpl(stringRedisTemplate, "ES256", 604800, 3600, KEK);
+        JwtKeyServiceImpl nodeBKeys = new JwtKeyServiceImpl(stringRedisTemplate, "ES256", 604800, 3600, KEK);
+        JwtServiceImpl nodeA = createJwtService(nodeAKeys);
+        JwtServiceImpl nodeB = createJwtService(nodeBKeys);
+        
+        // 执行
+        String token = nodeA.generateToken("testuser", 1L).getAccessToken();
+        
+        // 验证另一节点可以校验
+        Claims claims = nodeB.parseToken(token);
+        assertNotNull(claims);
+        assertEquals("testuser", claims.getSubject());
+        
+        // 验证下游服务仅凭公钥即可校验
+        String kid = nodeAKeys.getActiveKeyId();
+        Jws<Claims> jws = Jwts.parser().setSigningKey(nodeBKeys.getPublicKey(kid)).parseClaimsJws(token);
+        assertEquals(kid, jws.getHeader().getKeyId());
+        assertEquals("ES256", jws.getHeader().getAlgorithm());
+    }
+
+    @Test
+    void es256Mode_ShouldStillAcceptLegacyHmacTokensAndRejectUnknownKid() {
+        // 准备
+        JwtKeyServiceImpl keyService = new JwtKeyServiceImpl(stringRedisTemplate, "ES256", 604800, 3600, KEK);
+        JwtServiceImpl jwtService = createJwtService(keyService);
+        String hmacToken = createJwtService(mock(JwtKeyServiceImpl.class)).generateToken("testuser", 1L).getAccessToken();
+        
+        // 切换前签发的 HMAC 令牌仍然有效
+        assertNotNull(jwtService.parseToken(hmacToken));
+        
+        // 未知的 kid 不能通过校验
+        assertNull(keyService.getPublicKey("k0"));
+    }
+
+    @Test
+    void es256Mode_ShouldNotStorePlaintextPrivateKeysInRedis() {
+        // 准备
+        JwtKeyServiceImpl keyService = new JwtKeyServiceImpl(stringRedisTemplate, "ES256", 604800, 3600, KEK);
+        String kid = keyService.getActiveKeyId();
+        String plaintext = Base64.getEncoder().encodeToString(keyService.getPrivateKey(kid).getEncoded());
+
+        // 验证公钥哈希只有公钥，私钥哈希中没有明文
+        assertEquals(Base64.getEncoder().encodeToString(keyService.getPublicKey(kid).getEncoded()), redisHash.get(kid));
+        assertFalse(redisHash.get(kid).contains(plaintext));
+        assertNotNull(wrappedHash.get(kid));
+        assertFalse(wrappedHash.get(kid).contains(plaintext));
+    }
+
+    @Test
+    void es256Mode_ShouldRejectWrongOrMissingKeyEncryptionKey() {
+        // 准备：节点 A 以自己的 KEK 生成密钥
+        new JwtKeyServiceImpl(stringRedisTemplate, "ES256", 604800, 3600, KEK).getActiveKeyId();
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+        JwtKeyServiceImpl wrongKek = new JwtKeyServiceImpl(stringRedisTemplate, "ES256", 604800, 3600,
+                Base64.getEncoder().encodeToString(otherKey));
+
+        // 验证 KEK 不一致的节点无法解开私钥，未配置 KEK 时拒绝启动
+        assertThrows(IllegalStateException.class, wrongKek::getActiveKeyId);
+        assertThrows(IllegalStateException.class,
+                () -> new JwtKeyServiceImpl(stringRedisTemplate, "ES256", 604800, 3600, ""));
+    }
+
+    private JwtServiceImpl createJwtService(JwtKeyServiceImpl keyService) {
+        return new JwtServiceImpl(mock(TokenBlacklistService.class), keyService, mock(PermissionVersionService.class),
+                mock(UserDetailsService.class), "testSecret", 300, 3600, 100, false);
+    }
+}
@@ -14,10 +14,33 @@
 package com.cxyxh.iam.authn.service.impl;
 
 import com.cxyxh.iam.authn.dto.JwtTokenDTO;
+import com.cxyxh.iam.authn.service.JwtKeyService;
+import com.cxyxh.iam.authn.service.TokenBlacklistService;
+import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import com.cxyxh.iam.user.service.PermissionVersionService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
 import org.junit.jupiter.api.Test;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class JwtServiceImplTest {
@@ -25,14 +48,15 @@ class JwtServiceImplTest {
     @Test
     void testJwtConfigValues() {
         // 准备
-        RedisTemplate<String, Object> mockRedisTemplate = mock(RedisTemplate.class);
+        TokenBlacklistService mockBlacklistService = mock(TokenBlacklistService.class);
         String secret = "testSecret";
         long accessTokenExpiration = 300;
         long refreshTokenExpiration = 3600;
         
         // 创建服务
         JwtServiceImpl jwtService = new JwtServiceImpl(
-                mockRedisTemplate, secret, accessTokenExpiration, refreshTokenExpiration);
+                mockBlacklistService, mock(JwtKeyService.class), mock(PermissionVersionService.class),
+                mock(UserDetailsService.class), secret, accessTokenExpiration, refreshTokenExpiration, 100, false);
         
         // 创建一个简单的JwtTokenDTO进行测试
         JwtTokenDTO tokenDTO = new JwtTokenDTO();
@@ -46,4 +70,190 @@ class JwtServiceImplTest {
         assertEquals(accessTokenExpiration, tokenDTO.getExpiresIn());
         assertNotNull(tokenDTO.getAccessToken());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void parseToken_ShouldReuseVerifiedClaims() {
+        // 准备
+        TokenBlacklistService mockBlacklistService = mock(TokenBlacklistService.class);
+        JwtServiceImpl jwtService = createJwtService(mockBlacklistService, mock(PermissionVersionService.class), false);
+        String token = jwtService.generateToken("testuser", 1L).getAccessToken();
+        
+        // 执行
+        Claims first = jwtService.parseToken(token);
+        Claims second = jwtService.parseToken(token);
+        
+        // 验证同一令牌只解析一次，且声明正确
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals("testuser", first.getSubject());
+        assertEquals("testuser", jwtService.getUsernameFromToken(token));
+        assertEquals(1L, jwtService.getUserIdFromToken(token));
+        assertTrue(jwtService.validateToken(token));
+    }
+    
+    @Test
+    void parseToken_ShouldRejectTamperedAndInvalidatedTokens() {
+        // 准备
+        TokenBlacklistService mockBlacklistService = mock(TokenBlacklistService.class);
+        JwtServiceImpl jwtService = createJwtService(mockBlacklistService, mock(PermissionVersionService.class), false);
+        String token = jwtService.generateToken("testuser", 1L).getAccessToken();
+        
+        // 签名被篡改的令牌不能通过校验
+        assertNull(jwtService.parseToken(token + "x"));
+        assertNull(jwtService.parseToken(""));
+        
+        // 未签名的令牌不能通过校验
+        String unsignedToken = Jwts.builder().setSubject("testuser").claim("userId", "1").compact();
+        assertNull(jwtService.parseToken(unsignedToken));
+        
+        // 令牌失效后即使缓存中存在声明也不能通过校验
+        Claims claims = jwtService.parseToken(token);
+        assertNotNull(claims);
+        String blacklistKey = TokenBlacklistService.KEY_PREFIX + claims.getId();
+        jwtService.invalidateToken(token);
+        verify(mockBlacklistService).revoke(eq(blacklistKey), anyLong(), eq(TimeUnit.MILLISECONDS));
+        when(mockBlacklistService.isRevoked(blacklistKey)).thenReturn(true);
+        assertNull(jwtService.parseToken(token));
+    }
+    
+    @Test
+    void generateToken_ShouldAssignShortUniqueJti() {
+        // 准备
+        JwtServiceImpl jwtService = createJwtService(
+                mock(TokenBlacklistService.class), mock(PermissionVersionService.class), false);
+        JwtTokenDTO tokenDTO = jwtService.generateToken("testuser", 1L);
+        
+        // 执行
+        String accessJti = jwtService.parseToken(tokenDTO.getAccessToken()).getId();
+        String refreshJti = jwtService.parseToken(tokenDTO.getRefreshToken()).getId();
+        
+        // 验证每个令牌都有固定长度且互不相同的jti
+        assertEquals(22, accessJti.length());
+        assertEquals(22, refreshJti.length());
+        assertNotEquals(accessJti, refreshJti);
+    }
+    
+    @Test
+    void parseToken_ShouldHonorLegacyFullTokenBlacklistKey() {
+        // 准备：升级前签发的令牌没有jti
+        TokenBlacklistService mockBlacklistService = mock(TokenBlacklistService.class);
+        JwtServiceImpl jwtService = createJwtService(mockBlacklistService, mock(PermissionVersionService.class), false);
+        String legacyToken = Jwts.builder()
+                .setSubject("testuser")
+                .claim("userId", "1")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, "testSecret".getBytes(StandardCharsets.UTF_8))
+                .compact();
+        assertNotNull(jwtService.parseToken(legacyToken));
+        
+        // 旧的完整令牌黑名单键在过期前仍然有效
+        when(mockBlacklistService.isRevoked(TokenBlacklistService.KEY_PREFIX + legacyToken)).thenReturn(true);
+        assertNull(jwtService.parseToken(legacyToken));
+    }
+    
+    @Test
+    void getPrincipal_ShouldRebuildUserFromClaimsUntilVersionChanges() {
+        // 准备
+        PermissionVersionService mockVersionService = mock(PermissionVersionService.class);
+        when(mockVersionService.getVersion(1L)).thenReturn(3L);
+        JwtServiceImpl jwtService = createJwtService(mock(TokenBlacklistService.class), mockVersionService, true);
+        SecurityUser securityUser = new SecurityUser(
+                1L, "testuser", "password", true, Arrays.asList("ROLE_ADMIN", "user:list"));
+        Claims claims = jwtService.parseToken(jwtService.generateToken(securityUser).getAccessToken());
+        
+        // 版本一致时直接从令牌还原用户主体
+        SecurityUser principal = jwtService.getPrincipal(claims);
+        assertNotNull(principal);
+        assertEquals(1L, principal.getUserId());
+        assertEquals("testuser", principal.getUsername());
+        assertEquals(2, principal.getAuthorities().size());
+        
+        // 权限版本变更后令牌中的主体不再可用
+        when(mockVersionService.getVersion(1L)).thenReturn(4L);
+        assertNull(jwtService.getPrincipal(claims));
+    }
+    
+    @Test
+    void getPrincipal_ShouldReturnNullWhenStatelessModeDisabled() {
+        // 准备
+        JwtServiceImpl jwtService = createJwtService(
+                mock(TokenBlacklistService.class), mock(PermissionVersionService.class), false);
+        SecurityUser securityUser = new SecurityUser(
+                1L, "testuser", "password", true, Arrays.asList("ROLE_ADMIN"));
+        Claims claims = jwtService.parseToken(jwtService.generateToken(securityUser).getAccessToken());
+        
+        // 未开启时令牌不携带权限，始终回退到数据库
+        assertFalse(claims.containsKey("auth"));
+        assertNull(jwtService.getPrincipal(claims));
+    }
+    
+    @Test
+    void refreshToken_ShouldOnlySucceedForTheRevokeOnceWinner() throws Exception {
+        // 准备：黑名单以内存实现模拟 SET NX，脚本本身的原子写入见 TokenBlacklistServiceImplTest
+        JwtServiceImpl jwtService = createJwtService(
+                new InMemoryTokenBlacklistService(), mock(PermissionVersionService.class), false);
+        String refreshToken = jwtService.generateToken("testuser", 1L).getRefreshToken();
+        int attempts = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(attempts);
+        
+        // 执行：所有线程同时刷新同一个令牌
+        for (int i = 0; i < attempts; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    jwtService.refreshToken(refreshToken);
+                    successes.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // 令牌已被其他请求轮换
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // 验证只有一个请求成功
+        assertEquals(1, successes.get());
+    }
+    
+    private JwtServiceImpl createJwtService(TokenBlacklistService blacklistService,
+                                            PermissionVersionService versionService,
+                                            boolean statelessPrincipal) {
+        return new JwtServiceImpl(blacklistService, mock(JwtKeyService.class), versionService,
+                mock(UserDetailsService.class), "testSecret", 300, 3600, 100, statelessPrincipal);
+    }
+    
+    /**
+     * 内存中的黑名单，模拟 Redis 实现的 SET NX 语义，仅用于验证令牌服务对 revokeOnce 结果的处理
+     */
+    private static class InMemoryTokenBlacklistService implements TokenBlacklistService {
+        
+        private final Map<String, Boolean> revokedKeys = new ConcurrentHashMap<>();
+        
+        @Override
+        public boolean isRevoked(String key) {
+            return revokedKeys.containsKey(key);
+        }
+        
+        @Override
+        public void revoke(String key, long timeout, TimeUnit unit) {
+            revokedKeys.put(key, Boolean.TRUE);
+        }
+        
+        @Override
+        public boolean revokeOnce(String key, long timeout, TimeUnit unit) {
+            return revokedKeys.putIfAbsent(key, Boolean.TRUE) == null;
+        }
+        
+        @Override
+        public void evict(String key) {
+            revokedKeys.remove(key);
+        }
+    }
+}
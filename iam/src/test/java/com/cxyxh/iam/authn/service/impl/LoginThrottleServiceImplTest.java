@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LoginThrottleServiceImplTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void getRetryAfter_RedisLocked_ReturnsRemaining() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class, invocation ->
+                "execute".equals(invocation.getMethod().getName()) ? 30_000L : null);
+        LoginThrottleServiceImpl service = newService(redis, 1000);
+
+        assertEquals(30_000L, service.getRetryAfter("alice", "10.0.0.1"));
+        assertEquals(1, meterRegistry.get("iam.login.throttle").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void onFailure_RedisDown_LocksUserAfterLimit() {
+        LoginThrottleServiceImpl service = newService(unavailableRedis(), 1000);
+
+        for (int i = 0; i < 2; i++) {
+            service.onFailure("alice", "10.0.0.1");
+            assertEquals(0, service.getRetryAfter("alice", "10.0.0.1"));
+        }
+        service.onFailure("Alice", "10.0.0.2");
+
+        long retryAfter = service.getRetryAfter("ALICE", "10.0.0.3");
+        assertTrue(retryAfter > 0 && retryAfter <= 60_000, "第三次失败后应锁定用户名");
+        assertEquals(0, service.getRetryAfter("bob", "10.0.0.1"), "其他用户名与IP不受影响");
+        assertTrue(meterRegistry.get("iam.login.throttle").tag("result", "fallback").counter().count() >= 1);
+    }
+
+    @Test
+    void onFailure_RedisDown_LocksIpAcrossUsernames() {
+        LoginThrottleServiceImpl service = newService(unavailableRedis(), 1000);
+
+        for (int i = 0; i < 5; i++) {
+            service.onFailure("user" + i, "10.0.0.9");
+        }
+
+        assertTrue(service.getRetryAfter("someone-else", "10.0.0.9") > 0);
+        assertEquals(0, service.getRetryAfter("someone-else", "10.0.0.10"));
+    }
+
+    @Test
+    void onFailure_RepeatedLockouts_DoubleLockDuration() {
+        LoginThrottleServiceImpl service = newService(unavailableRedis(), 1000);
+
+        for (int i = 0; i < 3; i++) {
+            service.onFailure("carol", null);
+        }
+        long first = service.getRetryAfter("carol", null);
+        for (int i = 0; i < 3; i++) {
+            service.onFailure("carol", null);
+        }
+        long second = service.getRetryAfter("carol", null);
+
+        assertTrue(first <= 60_000);
+        assertTrue(second > 60_000 && second <= 120_000, "第二次锁定时长应翻倍");
+    }
+
+    @Test
+    void onSuccess_ClearsUserFailures() {
+        LoginThrottleServiceImpl service = newService(unavailableRedis(), 1000);
+
+        service.onFailure("dave", null);
+        service.onFailure("dave", null);
+        service.onSuccess("dave");
+        service.onFailure("dave", null);
+
+        assertEquals(0, service.getRetryAfter("dave", null));
+    }
+
+    @Test
+    void getRetryAfter_RedisSlow_FallsBackToLocal() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class, invocation -> {
+            Thread.sleep(500);
+            return 0L;
+        });
+        LoginThrottleServiceImpl service = newService(redis, 20);
+
+        long start = System.nanoTime();
+        assertEquals(0, service.getRetryAfter("erin", "10.0.0.1"));
+        assertTrue(System.nanoTime() - start < 400_000_000L, "Redis 变慢时不应等待其返回");
+        assertEquals(1, meterRegistry.get("iam.login.throttle").tag("result", "fallback").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onFailure_RedisCompletesAfterTimeout_RemovesLateWindowEntries() throws Exception {
+        ZSetOperations<String, String> zSet = mock(ZSetOperations.class);
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        when(redis.opsForZSet()).thenReturn(zSet);
+        List<String> windowKeys = new ArrayList<>();
+        String[] member = new String[1];
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            List<String> keys = invocation.getArgument(1);
+            keys.stream().filter(key -> key.startsWith("login:fail:")).forEach(windowKeys::add);
+            member[0] = invocation.getArgument(4);
+            Thread.sleep(200);
+            return 0L;
+        });
+        LoginThrottleServiceImpl service = newService(redis, 20);
+
+        service.onFailure("frank", "10.0.0.2");
+
+        // 本地已计入此次失败，迟到的 Redis 写入应被撤回
+        verify(zSet, timeout(2000).times(2)).remove(anyString(), any());
+        assertEquals(2, windowKeys.size(), "应同时写入用户和 IP 的失败窗口");
+        for (String key : windowKeys) {
+            verify(zSet).remove(key, member[0]);
+        }
+    }
+
+    private LoginThrottleServiceImpl newService(StringRedisTemplate redis, long redisTimeout) {
+        return new LoginThrottleServiceImpl(redis, meterRegistry, true, 900, 3, 5, 60, 3600, redisTimeout, 1000);
+    }
+
+    private static StringRedisTemplate unavailableRedis() {
+        return mock(StringRedisTemplate.class, invocation -> {
+            throw new RedisConnectionFailureException("Redis 不可用");
+        });
+    }
+}
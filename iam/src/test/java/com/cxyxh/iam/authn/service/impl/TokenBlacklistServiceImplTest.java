@@ -0,0 +1,290 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authn.service.impl;
+
+import com.cxyxh.iam.authn.service.TokenBlacklistService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TokenBlacklistServiceImplTest {
+
+    private static final String KEY = TokenBlacklistService.KEY_PREFIX + "jti-1";
+
+    private StringRedisTemplate stringRedisTemplate;
+    private RedisMessageListenerContainer listenerContainer;
+    private TokenBlacklistServiceImpl blacklistService;
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        listenerContainer = mock(RedisMessageListenerContainer.class);
+        blacklistService = new TokenBlacklistServiceImpl(stringRedisTemplate, listenerContainer, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void revokeOnce_RunsSetNxPxWithRemainingTtlThenPublish() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+        long before = System.currentTimeMillis();
+
+        assertTrue(blacklistService.revokeOnce(KEY, 1500, TimeUnit.MILLISECONDS));
+
+        ArgumentCaptor<RedisScript<Long>> script = ArgumentCaptor.forClass(RedisScript.class);
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(stringRedisTemplate).execute(script.capture(), keys.capture(), args.capture());
+
+        // 只有 SET NX 成功时才广播，写入与广播在同一次脚本执行中完成
+        String text = script.getValue().getScriptAsString();
+        int set = text.indexOf("redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2])");
+        int publish = text.indexOf("redis.call('PUBLISH', ARGV[3], ARGV[4])");
+        assertTrue(text.startsWith("if redis.call('SET'"), text);
+        assertTrue(set >= 0 && publish > set, text);
+        assertTrue(text.indexOf("return 0") > publish, text);
+        assertEquals(Long.class, script.getValue().getResultType());
+
+        assertEquals(List.of(KEY), keys.getValue());
+        Object[] argv = args.getValue();
+        assertEquals(4, argv.length);
+        assertEquals("1", argv[0]);
+        assertEquals("1500", argv[1]);
+        assertEquals(TokenBlacklistServiceImpl.SYNC_CHANNEL, argv[2]);
+        String message = (String) argv[3];
+        assertTrue(message.endsWith(" " + KEY), message);
+        long expireAt = Long.parseLong(message.substring(0, message.indexOf(' ')));
+        assertTrue(expireAt >= before + 1500 && expireAt <= System.currentTimeMillis() + 1500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void revokeOnce_ExpiredToken_UsesMinimumTtl() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+
+        blacklistService.revokeOnce(KEY, -20, TimeUnit.MILLISECONDS);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(stringRedisTemplate).execute(any(RedisScript.class), anyList(), args.capture());
+        assertEquals("1", args.getValue()[1], "PX 必须为正数，否则 Redis 拒绝执行");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void revokeOnce_KeyAlreadyInRedis_ReturnsFalseWithoutLocalMark() {
+        synchronizeWith();
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(0L);
+
+        assertFalse(blacklistService.revokeOnce(KEY, 1000, TimeUnit.MILLISECONDS));
+        assertFalse(blacklistService.isRevoked(KEY));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void revokeOnce_AlreadyRevokedLocally_SkipsRedis() {
+        synchronizeWith();
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+
+        assertTrue(blacklistService.revokeOnce(KEY, 1000, TimeUnit.MILLISECONDS));
+        assertTrue(blacklistService.isRevoked(KEY));
+        assertFalse(blacklistService.revokeOnce(KEY, 1000, TimeUnit.MILLISECONDS));
+        verify(stringRedisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void revoke_WritesRedisAndPublishesExpiry() {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        blacklistService.revoke(KEY, 60, TimeUnit.SECONDS);
+
+        verify(valueOperations).set(KEY, "1", 60, TimeUnit.SECONDS);
+        verify(stringRedisTemplate).convertAndSend(eq(TokenBlacklistServiceImpl.SYNC_CHANNEL), endsWith(" " + KEY));
+    }
+
+    @Test
+    void isRevoked_BeforeSync_FallsBackToRedis() {
+        when(stringRedisTemplate.hasKey(KEY)).thenReturn(true);
+
+        assertTrue(blacklistService.isRevoked(KEY));
+        verify(stringRedisTemplate).hasKey(KEY);
+    }
+
+    @Test
+    void synchronize_LoadsExistingRevocationsIntoLocalMirror() {
+        when(stringRedisTemplate.getExpire(KEY, TimeUnit.MILLISECONDS)).thenReturn(60_000L);
+        String gone = TokenBlacklistService.KEY_PREFIX + "expired";
+        when(stringRedisTemplate.getExpire(gone, TimeUnit.MILLISECONDS)).thenReturn(-2L);
+
+        synchronizeWith(KEY, gone);
+
+        assertTrue(blacklistService.isRevoked(KEY));
+        assertFalse(blacklistService.isRevoked(gone));
+        verify(stringRedisTemplate, never()).hasKey(anyString());
+        verify(listenerContainer).addMessageListener(same(blacklistService), any(Topic.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void synchronize_ScanFails_StaysOnRedisUntilRetrySucceeds() {
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenThrow(new IllegalStateException("redis down"));
+        when(stringRedisTemplate.hasKey(KEY)).thenReturn(false);
+
+        assertFalse(blacklistService.synchronize());
+        assertFalse(blacklistService.isRevoked(KEY));
+        verify(stringRedisTemplate).hasKey(KEY);
+
+        when(stringRedisTemplate.getExpire(KEY, TimeUnit.MILLISECONDS)).thenReturn(60_000L);
+        Iterator<String> iterator = List.of(KEY).iterator();
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        doReturn(cursor).when(stringRedisTemplate).scan(any(ScanOptions.class));
+
+        assertTrue(blacklistService.synchronize());
+        assertTrue(blacklistService.isRevoked(KEY));
+        // 重试不重复订阅同步频道
+        verify(listenerContainer, times(1)).addMessageListener(same(blacklistService), any(Topic.class));
+    }
+
+    @Test
+    void onApplicationReady_ExposesSyncStateGauge() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TokenBlacklistServiceImpl service = new TokenBlacklistServiceImpl(stringRedisTemplate, listenerContainer, meterRegistry);
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenThrow(new IllegalStateException("redis down"));
+
+        service.onApplicationReady();
+
+        assertEquals(0, meterRegistry.get("iam.jwt.blacklist.synced").gauge().value());
+        service.destroy();
+    }
+
+    @Test
+    void onChannelSubscribed_Resubscribed_FallsBackToRedisUntilResynced() {
+        synchronizeWith();
+        blacklistService.onChannelSubscribed(channel(), 1);
+        assertFalse(blacklistService.isRevoked(KEY), "首次订阅确认不影响已同步的镜像");
+        verify(stringRedisTemplate, never()).hasKey(anyString());
+
+        // 订阅连接断开期间 KEY 被吊销，广播已丢失
+        when(stringRedisTemplate.hasKey(KEY)).thenReturn(true);
+        when(stringRedisTemplate.getExpire(KEY, TimeUnit.MILLISECONDS)).thenReturn(60_000L);
+        blacklistService.onChannelSubscribed(channel(), 1);
+
+        assertTrue(blacklistService.isRevoked(KEY), "重新订阅后在重新加载完成前以 Redis 为准");
+        verify(stringRedisTemplate).hasKey(KEY);
+
+        synchronizeWith(KEY);
+        assertTrue(blacklistService.isRevoked(KEY));
+        verify(stringRedisTemplate, times(1)).hasKey(KEY);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void synchronize_ResubscribedDuringScan_IsNotMarkedSynced() {
+        blacklistService.onChannelSubscribed(channel(), 1);
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> {
+            blacklistService.onChannelSubscribed(channel(), 1);
+            return false;
+        });
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+
+        assertFalse(blacklistService.synchronize());
+        blacklistService.isRevoked(KEY);
+        verify(stringRedisTemplate).hasKey(KEY);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onApplicationReady_ReconcilesPeriodically() {
+        Cursor<String> cursor = mock(Cursor.class);
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        ReflectionTestUtils.setField(blacklistService, "reconcileInterval", 1L);
+
+        blacklistService.onApplicationReady();
+        try {
+            verify(stringRedisTemplate, timeout(5000).atLeast(2)).scan(any(ScanOptions.class));
+        } finally {
+            blacklistService.destroy();
+        }
+    }
+
+    @Test
+    void onMessage_AppliesRemoteRevocationAndIgnoresMalformed() {
+        synchronizeWith();
+        long expireAt = System.currentTimeMillis() + 60_000;
+
+        blacklistService.onMessage(message("garbage"), null);
+        blacklistService.onMessage(message("abc " + KEY), null);
+        assertFalse(blacklistService.isRevoked(KEY));
+
+        blacklistService.onMessage(message(expireAt + " " + KEY), null);
+        assertTrue(blacklistService.isRevoked(KEY));
+
+        blacklistService.evict(KEY);
+        assertFalse(blacklistService.isRevoked(KEY));
+    }
+
+    @Test
+    void isRevoked_ExpiredLocalEntry_IsDropped() {
+        synchronizeWith();
+        blacklistService.onMessage(message((System.currentTimeMillis() - 1) + " " + KEY), null);
+
+        assertFalse(blacklistService.isRevoked(KEY));
+    }
+
+    /**
+     * 以给定的 Redis 键完成一次全量同步
+     *
+     * @param keys 已存在的黑名单键
+     */
+    @SuppressWarnings("unchecked")
+    private void synchronizeWith(String... keys) {
+        Iterator<String> iterator = List.of(keys).iterator();
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        blacklistService.synchronize();
+    }
+
+    private static byte[] channel() {
+        return TokenBlacklistServiceImpl.SYNC_CHANNEL.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TokenBlacklistServiceImpl.SYNC_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
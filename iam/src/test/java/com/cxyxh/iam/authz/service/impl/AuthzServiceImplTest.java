@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.authz.service.impl;
+
+import com.cxyxh.iam.authn.service.JwtService;
+import com.cxyxh.iam.authz.dto.AuthzDecisionRequestDTO;
+import com.cxyxh.iam.authz.vo.AuthzDecisionVO;
+import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import com.cxyxh.iam.user.dto.UserAuthDTO;
+import com.cxyxh.iam.user.entity.User;
+import com.cxyxh.iam.user.service.PermissionVersionService;
+import com.cxyxh.iam.user.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuthzServiceImplTest {
+
+    private UserService userService;
+    private JwtService jwtService;
+    private PermissionVersionService permissionVersionService;
+    private AuthzServiceImpl authzService;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        jwtService = mock(JwtService.class);
+        permissionVersionService = mock(PermissionVersionService.class);
+        when(userService.getUserAuth(1L)).thenReturn(createUserAuth(1L, 1, List.of("ADMIN"), List.of("user:view", "user:list")));
+        when(userService.getUserAuth(2L)).thenReturn(createUserAuth(2L, 1, List.of(), List.of("user:view")));
+        when(userService.getUserAuth(3L)).thenReturn(createUserAuth(3L, 0, List.of(), List.of("user:view")));
+        authzService = new AuthzServiceImpl(userService, jwtService, permissionVersionService, 100, 10, 100, 60);
+    }
+
+    @Test
+    void decide_PacksDecisionsInRequestOrder() {
+        // 用户1: view, list, ROLE_ADMIN；用户2: view
+        AuthzDecisionVO vo = authzService.decide(createRequest(List.of(1L, 2L), List.of(),
+                List.of("user:view", "user:list", "ROLE_ADMIN"),
+                0, 0, 0, 1, 0, 2, 1, 0, 1, 1, 1, 2, 0, 0, 1, 0, 1, 1));
+
+        assertEquals(9, vo.getCount());
+        assertArrayEquals(new boolean[]{true, true, true, true, false, false, true, true, false}, unpack(vo));
+        assertTrue(vo.getInvalidSubjects().isEmpty());
+    }
+
+    @Test
+    void decide_UnknownPermission_IsDenied() {
+        AuthzDecisionVO vo = authzService.decide(createRequest(List.of(1L), List.of(),
+                List.of("never:granted:anywhere"), 0, 0));
+
+        assertArrayEquals(new boolean[]{false}, unpack(vo));
+    }
+
+    @Test
+    void decide_DisabledUserAndInvalidToken_AreReportedAndDenied() {
+        when(jwtService.parseToken("bad")).thenReturn(null);
+
+        AuthzDecisionVO vo = authzService.decide(createRequest(List.of(3L), List.of("bad"),
+                List.of("user:view"), 0, 0, 1, 0));
+
+        assertArrayEquals(new boolean[]{false, false}, unpack(vo));
+        assertEquals(List.of(0, 1), vo.getInvalidSubjects());
+    }
+
+    @Test
+    void decide_StatelessToken_UsesTokenAuthorities() {
+        Claims claims = new DefaultClaims();
+        claims.put("type", "access");
+        claims.put("userId", "9");
+        when(jwtService.parseToken("token")).thenReturn(claims);
+        when(jwtService.getPrincipal(claims)).thenReturn(new SecurityUser(9L, "u9", null, true, List.of("user:list")));
+
+        AuthzDecisionVO vo = authzService.decide(createRequest(List.of(), List.of("token"),
+                List.of("user:list", "user:view"), 0, 0, 0, 1));
+
+        assertArrayEquals(new boolean[]{true, false}, unpack(vo));
+        verify(userService, never()).getUserAuth(any());
+    }
+
+    @Test
+    void decide_RefreshToken_IsRejected() {
+        Claims claims = new DefaultClaims();
+        claims.put("type", "refresh");
+        claims.put("userId", "1");
+        when(jwtService.parseToken("refresh")).thenReturn(claims);
+
+        AuthzDecisionVO vo = authzService.decide(createRequest(List.of(), List.of("refresh"), List.of("user:view"), 0, 0));
+
+        assertArrayEquals(new boolean[]{false}, unpack(vo));
+        assertEquals(List.of(0), vo.getInvalidSubjects());
+    }
+
+    @Test
+    void decide_CachesSubjectsUntilPermissionVersionChanges() {
+        AuthzDecisionRequestDTO request = createRequest(List.of(1L), List.of(), List.of("user:view"), 0, 0);
+
+        authzService.decide(request);
+        authzService.decide(request);
+        verify(userService, times(1)).getUserAuth(1L);
+
+        when(permissionVersionService.getVersion(1L)).thenReturn(1L);
+        authzService.decide(request);
+        verify(userService, times(2)).getUserAuth(1L);
+    }
+
+    @Test
+    void decide_InvalidRequest_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> authzService.decide(createRequest(List.of(1L), List.of(), List.of("user:view"), 0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> authzService.decide(createRequest(List.of(1L), List.of(), List.of("user:view"), 1, 0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> authzService.decide(createRequest(List.of(1L), List.of(), List.of("user:view"), new int[202])));
+    }
+
+    private static AuthzDecisionRequestDTO createRequest(List<Long> userIds, List<String> tokens,
+                                                         List<String> permissions, int... checks) {
+        AuthzDecisionRequestDTO request = new AuthzDecisionRequestDTO();
+        request.setUserIds(userIds);
+        request.setTokens(tokens);
+        request.setPermissions(permissions);
+        request.setChecks(checks);
+        return request;
+    }
+
+    private static UserAuthDTO createUserAuth(Long userId, int status, List<String> roles, List<String> permissions) {
+        User user = new User();
+        user.setId(userId);
+        user.setStatus(status);
+        UserAuthDTO userAuth = new UserAuthDTO();
+        userAuth.setUserId(userId);
+        userAuth.setUser(user);
+        userAuth.setRoles(new ArrayList<>(roles));
+        userAuth.setPermissions(new ArrayList<>(permissions));
+        return userAuth;
+    }
+
+    private static boolean[] unpack(AuthzDecisionVO vo) {
+        boolean[] result = new boolean[vo.getCount()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (vo.getDecisions()[i >>> 3] & (1 << (i & 7))) != 0;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.common.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void decode_EncodedCursor_RoundTrips() {
+        LocalDateTime createTime = LocalDateTime.of(2024, 3, 15, 10, 30, 5);
+        String cursor = new PageCursor(createTime, 42L).encode();
+
+        PageCursor decoded = PageCursor.decode(cursor);
+
+        assertEquals(createTime, decoded.getCreateTime());
+        assertEquals(42L, decoded.getId());
+        assertFalse(cursor.contains("=") || cursor.contains("+") || cursor.contains("/"), "游标应可直接放入URL");
+    }
+
+    @Test
+    void decode_BlankCursor_ReturnsNull() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(""));
+    }
+
+    @Test
+    void decode_MalformedCursor_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("bm90LWEtY3Vyc29y"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("MjAyNC0wMS0wMVQwMDowMCx4"));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security.authority;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthoritySetTest {
+
+    @Test
+    void of_SameCodes_ReturnsSharedInstance() {
+        AuthoritySet first = AuthoritySet.of(List.of("ROLE_ADMIN", "user:list", "user:add"));
+        AuthoritySet second = AuthoritySet.of(List.of("user:add", "ROLE_ADMIN", "user:list"));
+
+        assertSame(first, second);
+        assertEquals(3, first.size());
+    }
+
+    @Test
+    void of_EmptyCodes_ReturnsEmpty() {
+        assertSame(AuthoritySet.EMPTY, AuthoritySet.of(Collections.emptyList()));
+        assertSame(AuthoritySet.EMPTY, AuthoritySet.of(null));
+    }
+
+    @Test
+    void contains_GrantedCode_ReturnsTrue() {
+        AuthoritySet set = AuthoritySet.of(List.of("ROLE_USER", "user:list"));
+
+        assertTrue(set.contains("ROLE_USER"));
+        assertTrue(set.contains("user:list"));
+        assertTrue(set.contains(PermissionDictionary.find("user:list")));
+        assertFalse(set.contains("user:delete"));
+    }
+
+    @Test
+    void contains_UnknownCode_DoesNotGrowDictionary() {
+        AuthoritySet set = AuthoritySet.of(List.of("ROLE_USER"));
+        int size = PermissionDictionary.size();
+
+        assertFalse(set.contains("never:interned:code"));
+        assertEquals(size, PermissionDictionary.size());
+        assertEquals(-1, PermissionDictionary.find("never:interned:code"));
+    }
+
+    @Test
+    void getGrantedAuthorities_RepeatedCalls_ReturnSameView() {
+        AuthoritySet set = AuthoritySet.of(List.of("ROLE_USER", "user:list"));
+
+        assertSame(set.getGrantedAuthorities(), set.getGrantedAuthorities());
+        assertEquals(2, set.getGrantedAuthorities().size());
+        assertTrue(set.getCodes().containsAll(List.of("ROLE_USER", "user:list")));
+    }
+}
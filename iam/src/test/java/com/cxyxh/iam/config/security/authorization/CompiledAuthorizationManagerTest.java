@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security.authorization;
+
+import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CompiledAuthorizationManagerTest {
+
+    private AuthorizationManager<MethodInvocation> fallback;
+    private CompiledAuthorizationManager manager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        fallback = mock(AuthorizationManager.class);
+        when(fallback.authorize(any(), any())).thenReturn(new AuthorizationDecision(true));
+        manager = new CompiledAuthorizationManager(fallback);
+    }
+
+    @Test
+    void authorize_HasAuthority_TestsAuthorityBits() throws Exception {
+        assertTrue(authorize("view", userWith("user:view")));
+        assertFalse(authorize("view", userWith("user:list")));
+        verifyNoInteractions(fallback);
+    }
+
+    @Test
+    void authorize_HasAnyRole_AddsRolePrefix() throws Exception {
+        assertTrue(authorize("admin", userWith("ROLE_AUDITOR")));
+        assertFalse(authorize("admin", userWith("AUDITOR")));
+        assertEquals(List.of("ROLE_ADMIN", "ROLE_AUDITOR"),
+                manager.getRule(Controller.class.getMethod("admin"), Controller.class).getCodes());
+    }
+
+    @Test
+    void authorize_NonSecurityUserPrincipal_ChecksGrantedAuthorities() throws Exception {
+        assertTrue(authorize("view", new TestingAuthenticationToken("user", null, "user:view")));
+        assertFalse(authorize("view", new TestingAuthenticationToken("user", null, "user:list")));
+    }
+
+    @Test
+    void authorize_ComplexExpression_FallsBackToSpel() throws Exception {
+        Authentication authentication = userWith("user:view");
+
+        assertTrue(authorize("complex", authentication));
+        verify(fallback).authorize(any(), any());
+
+        CompiledAuthorizationManager.CompiledRule rule =
+                manager.getRule(Controller.class.getMethod("complex"), Controller.class);
+        assertFalse(rule.isCompiled());
+        assertEquals(List.of("user:view", "user:update"), rule.getCodes());
+    }
+
+    @Test
+    void authorize_ClassLevelAnnotation_AppliesToMethods() throws Exception {
+        MethodInvocation invocation = new SimpleMethodInvocation(new AnnotatedController(),
+                AnnotatedController.class.getMethod("list"));
+
+        assertTrue(manager.authorize(() -> userWith("user:list"), invocation).isGranted());
+        assertFalse(manager.authorize(() -> userWith("user:view"), invocation).isGranted());
+    }
+
+    @Test
+    void authorize_NoAuthentication_Denies() throws Exception {
+        assertFalse(authorize("view", null));
+    }
+
+    private boolean authorize(String methodName, Authentication authentication) throws Exception {
+        MethodInvocation invocation = new SimpleMethodInvocation(new Controller(), Controller.class.getMethod(methodName));
+        return manager.authorize(() -> authentication, invocation).isGranted();
+    }
+
+    private static Authentication userWith(String... authorities) {
+        SecurityUser user = new SecurityUser(1L, "testuser", "password", true, List.of(authorities));
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    static class Controller {
+
+        @PreAuthorize("hasAuthority('user:view')")
+        public void view() {
+        }
+
+        @PreAuthorize("hasAnyRole('ADMIN', 'ROLE_AUDITOR')")
+        public void admin() {
+        }
+
+        @PreAuthorize("hasAuthority('user:view') and hasAuthority('user:update')")
+        public void complex() {
+        }
+    }
+
+    @PreAuthorize("hasAuthority('user:list')")
+    static class AnnotatedController {
+
+        public void list() {
+        }
+    }
+}
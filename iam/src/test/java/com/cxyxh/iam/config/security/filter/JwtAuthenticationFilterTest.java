@@ -15,6 +15,8 @@ package com.cxyxh.iam.config.security.filter;
 
 import com.cxyxh.iam.authn.service.JwtService;
 import com.cxyxh.iam.config.security.userdetails.SecurityUser;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -71,8 +73,8 @@ class JwtAuthenticationFilterTest {
     void doFilterInternal_WithValidToken_ShouldSetAuthentication() throws ServletException, IOException {
         // 设置Mock行为
         when(request.getHeader("Authorization")).thenReturn("Bearer " + TOKEN);
-        when(jwtService.validateToken(TOKEN)).thenReturn(true);
-        when(jwtService.getUsernameFromToken(TOKEN)).thenReturn(USERNAME);
+        Claims claims = Jwts.claims().setSubject(USERNAME);
+        when(jwtService.parseToken(TOKEN)).thenReturn(claims);
         
         // 创建模拟用户
         SecurityUser securityUser = new SecurityUser(
@@ -93,13 +95,46 @@ class JwtAuthenticationFilterTest {
         // 验证安全上下文中有认证信息
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
         assertEquals(USERNAME, SecurityContextHolder.getContext().getAuthentication().getName());
+        
+        // 验证令牌只被解析一次
+        verify(jwtService).parseToken(TOKEN);
+        verify(jwtService, never()).validateToken(anyString());
+        verify(jwtService, never()).getUsernameFromToken(anyString());
+    }
+    
+    @Test
+    void doFilterInternal_WithStatelessPrincipal_ShouldSkipUserLookup() throws ServletException, IOException {
+        // 设置Mock行为
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + TOKEN);
+        Claims claims = Jwts.claims().setSubject(USERNAME);
+        when(jwtService.parseToken(TOKEN)).thenReturn(claims);
+        SecurityUser securityUser = new SecurityUser(
+                USER_ID,
+                USERNAME,
+                null,
+                true,
+                Collections.singletonList("ROLE_USER")
+        );
+        when(jwtService.getPrincipal(claims)).thenReturn(securityUser);
+        
+        // 执行过滤器
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        
+        // 验证过滤链被调用
+        verify(filterChain).doFilter(request, response);
+        
+        // 验证使用令牌中的主体完成认证
+        assertSame(securityUser, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        
+        // 验证没有查询用户详情
+        verifyNoInteractions(userDetailsService);
     }
     
     @Test
     void doFilterInternal_WithInvalidToken_ShouldNotSetAuthentication() throws ServletException, IOException {
         // 设置Mock行为
         when(request.getHeader("Authorization")).thenReturn("Bearer invalid-token");
-        when(jwtService.validateToken("invalid-token")).thenReturn(false);
+        when(jwtService.parseToken("invalid-token")).thenReturn(null);
         
         // 执行过滤器
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -156,7 +191,7 @@ class JwtAuthenticationFilterTest {
     void doFilterInternal_WithException_ShouldContinueChain() throws ServletException, IOException {
         // 设置Mock行为
         when(request.getHeader("Authorization")).thenReturn("Bearer " + TOKEN);
-        when(jwtService.validateToken(TOKEN)).thenThrow(new RuntimeException("Test exception"));
+        when(jwtService.parseToken(TOKEN)).thenThrow(new RuntimeException("Test exception"));
         
         // 执行过滤器
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -0,0 +1,230 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.security.userdetails;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserDetailsCacheTest {
+
+    private static final String USERNAME = "testuser";
+
+    /**
+     * 模拟 Redis 中的字符串键值
+     */
+    private final Map<String, String> redisValues = new ConcurrentHashMap<>();
+
+    private StringRedisTemplate stringRedisTemplate;
+    private AtomicInteger loadCount;
+    private Function<String, SecurityUser> loader;
+    private Function<String, String> passwordLoader;
+    private AtomicInteger passwordLoadCount;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(valueOperations.multiGet(anyCollection())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0)
+                .stream().map(redisValues::get).collect(Collectors.toList()));
+
+        // 按脚本语义模拟：失效脚本递增代数并删除快照，写入脚本仅在代数未变时写入
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            RedisScript<?> script = invocation.getArgument(0);
+            List<String> keys = invocation.getArgument(1);
+            if (script.getScriptAsString().contains("INCR")) {
+                redisValues.merge(keys.get(1), "1", (current, one) -> String.valueOf(Long.parseLong(current) + 1));
+                redisValues.remove(keys.get(0));
+                return 1L;
+            }
+            if (!redisValues.getOrDefault(keys.get(1), "").equals(invocation.getArgument(4))) {
+                return 0L;
+            }
+            redisValues.put(keys.get(0), invocation.getArgument(2));
+            return 1L;
+        });
+
+        loadCount = new AtomicInteger();
+        loader = username -> {
+            loadCount.incrementAndGet();
+            SecurityUser securityUser = new SecurityUser(1L, username, "password", true, List.of("user:view", "ROLE_USER"));
+            securityUser.setNickname("测试用户");
+            securityUser.setAvatar("avatar.png");
+            securityUser.setTenantId(7L);
+            return securityUser;
+        };
+        passwordLoadCount = new AtomicInteger();
+        passwordLoader = username -> {
+            passwordLoadCount.incrementAndGet();
+            return "password";
+        };
+    }
+
+    @Test
+    void get_ShouldShareLoadedUserThroughRedis() {
+        // 准备：两个节点共享 Redis
+        UserDetailsCache nodeA = createCache();
+        UserDetailsCache nodeB = createCache();
+        
+        // 执行
+        SecurityUser fromA = nodeA.get(USERNAME, loader, passwordLoader);
+        SecurityUser fromB = nodeB.get(USERNAME, loader, passwordLoader);
+        
+        // 验证只回源一次，另一节点从 L2 读取到相同内容
+        assertEquals(1, loadCount.get());
+        assertTrue(redisValues.containsKey(UserDetailsCache.KEY_PREFIX + USERNAME));
+        assertEquals(fromA.getUserId(), fromB.getUserId());
+        assertEquals(fromA.getPassword(), fromB.getPassword());
+        assertEquals(fromA.getAuthorities(), fromB.getAuthorities());
+    }
+
+    @Test
+    void get_ShouldKeepPasswordHashOutOfRedis() {
+        // 准备：节点 A 回源写入 L2
+        UserDetailsCache nodeA = createCache();
+        nodeA.get(USERNAME, loader, passwordLoader);
+
+        // 验证 L2 快照不含密码哈希，节点 A 的 L1 命中也不再读取密码
+        String json = redisValues.get(UserDetailsCache.KEY_PREFIX + USERNAME);
+        assertFalse(json.contains("password"), json);
+        assertEquals("password", nodeA.get(USERNAME, loader, passwordLoader).getPassword());
+        assertEquals(0, passwordLoadCount.get());
+
+        // 节点 B 从 L2 恢复时不读取密码哈希，首次校验密码时才回源，之后留在 L1
+        UserDetailsCache nodeB = createCache();
+        SecurityUser fromRedis = nodeB.get(USERNAME, loader, passwordLoader);
+        assertEquals(0, passwordLoadCount.get());
+        assertEquals("password", fromRedis.getPassword());
+        assertEquals("password", nodeB.get(USERNAME, loader, passwordLoader).getPassword());
+        assertEquals(1, passwordLoadCount.get());
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    void get_RedisHitWithoutPasswordCheck_DoesNotTouchDatabase() {
+        // 准备：节点 A 回源写入 L2
+        createCache().get(USERNAME, loader, passwordLoader);
+
+        // 执行：令牌认证只读取权限和资料
+        SecurityUser fromRedis = createCache().get(USERNAME, loader, passwordLoader);
+
+        // 验证
+        assertTrue(fromRedis.hasAuthority("user:view"));
+        assertEquals(1, loadCount.get());
+        assertEquals(0, passwordLoadCount.get());
+    }
+
+    @Test
+    void get_UserGoneSinceSnapshot_HasNoPassword() {
+        // 准备：L2 中残留快照，但用户已不可用
+        createCache().get(USERNAME, loader, passwordLoader);
+
+        // 验证残留快照无法通过密码校验
+        assertNull(createCache().get(USERNAME, loader, username -> null).getPassword());
+    }
+
+    @Test
+    void get_EvictedWhileLoading_DoesNotWriteStaleSnapshot() {
+        // 准备：节点 A 回源期间，节点 B 提交了用户变更并执行失效
+        UserDetailsCache nodeB = createCache();
+        Function<String, SecurityUser> slowLoader = username -> {
+            SecurityUser stale = loader.apply(username);
+            nodeB.evict(username);
+            return stale;
+        };
+
+        // 执行
+        createCache().get(USERNAME, slowLoader, passwordLoader);
+
+        // 验证失效前加载的旧数据没有写回 L2，下次查询重新回源
+        assertFalse(redisValues.containsKey(UserDetailsCache.KEY_PREFIX + USERNAME));
+        createCache().get(USERNAME, loader, passwordLoader);
+        assertEquals(2, loadCount.get());
+        assertTrue(redisValues.containsKey(UserDetailsCache.KEY_PREFIX + USERNAME));
+    }
+
+    @Test
+    void get_ShouldKeepProfileForLoginResponse() {
+        // 准备：节点 A 回源写入 L2，节点 B 从 L2 反序列化
+        createCache().get(USERNAME, loader, passwordLoader);
+        SecurityUser fromRedis = createCache().get(USERNAME, loader, passwordLoader);
+
+        // 验证登录响应所需的资料、角色与权限都在快照中
+        assertEquals(1, loadCount.get());
+        assertEquals("测试用户", fromRedis.getNickname());
+        assertEquals("avatar.png", fromRedis.getAvatar());
+        assertEquals(7L, fromRedis.getTenantId());
+        assertEquals(List.of("USER"), fromRedis.getRoles());
+        assertEquals(List.of("user:view"), fromRedis.getPermissions());
+    }
+
+    @Test
+    void evict_ShouldClearBothLevelsAndBroadcast() {
+        // 准备
+        UserDetailsCache cache = createCache();
+        cache.get(USERNAME, loader, passwordLoader);
+        
+        // 执行
+        cache.evict(USERNAME);
+        
+        // 验证 L2 被删除并广播，再次查询会回源
+        assertFalse(redisValues.containsKey(UserDetailsCache.KEY_PREFIX + USERNAME));
+        verify(stringRedisTemplate).convertAndSend(UserDetailsCache.INVALIDATE_CHANNEL, USERNAME);
+        cache.get(USERNAME, loader, passwordLoader);
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void onMessage_ShouldInvalidateLocalEntry() {
+        // 准备
+        UserDetailsCache cache = createCache();
+        cache.get(USERNAME, loader, passwordLoader);
+        redisValues.clear();
+        
+        // 执行：收到其他节点的失效广播
+        cache.onMessage(new DefaultMessage(
+                UserDetailsCache.INVALIDATE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                USERNAME.getBytes(StandardCharsets.UTF_8)), null);
+        
+        // 验证本地缓存已清除
+        cache.get(USERNAME, loader, passwordLoader);
+        assertEquals(2, loadCount.get());
+    }
+
+    private UserDetailsCache createCache() {
+        return new UserDetailsCache(stringRedisTemplate, mock(RedisMessageListenerContainer.class),
+                new ObjectMapper(), new SimpleMeterRegistry(), 100, 300, 1800);
+    }
+}
@@ -13,9 +13,15 @@
  */
 package com.cxyxh.iam.config.security.userdetails;
 
+import com.cxyxh.iam.user.dto.UserAuthDTO;
 import com.cxyxh.iam.user.entity.User;
 import com.cxyxh.iam.user.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.util.ArrayList;
@@ -32,7 +38,7 @@ class UserDetailsServiceImplTest {
         UserService mockUserService = mock(UserService.class);
         
         // 创建测试对象
-        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(mockUserService);
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(mockUserService, createUserDetailsCache());
         
         // 设置mock行为
         User mockUser = new User();
@@ -47,9 +53,7 @@ class UserDetailsServiceImplTest {
         List<String> roles = new ArrayList<>();
         roles.add("USER");
         
-        when(mockUserService.getUserByUsername("testuser")).thenReturn(mockUser);
-        when(mockUserService.getUserPermissions(1L)).thenReturn(permissions);
-        when(mockUserService.getUserRoles(1L)).thenReturn(roles);
+        when(mockUserService.getUserAuthByUsername("testuser")).thenReturn(createUserAuth(mockUser, roles, permissions));
         
         // 验证能够创建UserDetailsService
         assertNotNull(userDetailsService);
@@ -61,13 +65,58 @@ class UserDetailsServiceImplTest {
         UserService mockUserService = mock(UserService.class);
         
         // 创建测试对象
-        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(mockUserService);
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(mockUserService, createUserDetailsCache());
         
         // 设置mock行为
-        when(mockUserService.getUserByUsername("nonexistent")).thenReturn(null);
+        when(mockUserService.getUserAuthByUsername("nonexistent")).thenReturn(null);
         
         // 验证抛出异常
         assertThrows(UsernameNotFoundException.class, 
                 () -> userDetailsService.loadUserByUsername("nonexistent"));
     }
-} 
\ No newline at end of file
+    
+    @Test
+    void loadUserByUsername_ShouldServeRepeatedLookupsFromCache() {
+        // Mock依赖
+        UserService mockUserService = mock(UserService.class);
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(mockUserService, createUserDetailsCache());
+        
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setUsername("testuser");
+        mockUser.setPassword("password");
+        mockUser.setStatus(1);
+        when(mockUserService.getUserAuthByUsername("testuser"))
+                .thenReturn(createUserAuth(mockUser, List.of("USER"), List.of("user:view")));
+        
+        // 执行两次查询
+        UserDetails first = userDetailsService.loadUserByUsername("testuser");
+        UserDetails second = userDetailsService.loadUserByUsername("testuser");
+        
+        // 验证只访问一次数据库，且每次返回独立实例
+        assertEquals(2, first.getAuthorities().size());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        assertNotSame(first, second);
+        verify(mockUserService, times(1)).getUserAuthByUsername("testuser");
+    }
+    
+    /**
+     * 创建用户认证信息
+     */
+    static UserAuthDTO createUserAuth(User user, List<String> roles, List<String> permissions) {
+        UserAuthDTO userAuth = new UserAuthDTO();
+        userAuth.setUserId(user.getId());
+        userAuth.setUser(user);
+        userAuth.setRoles(new ArrayList<>(roles));
+        userAuth.setPermissions(new ArrayList<>(permissions));
+        return userAuth;
+    }
+    
+    /**
+     * 创建 Redis 不可用时的用户详情缓存（只使用本地缓存）
+     */
+    static UserDetailsCache createUserDetailsCache() {
+        return new UserDetailsCache(mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class),
+                new ObjectMapper(), new SimpleMeterRegistry(), 100, 300, 1800);
+    }
+}
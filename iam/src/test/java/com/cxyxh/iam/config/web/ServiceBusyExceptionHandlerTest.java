@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.config.web;
+
+import com.cxyxh.iam.common.api.Result;
+import com.cxyxh.iam.common.api.ResultCode;
+import com.cxyxh.iam.config.security.password.PasswordEncoderBusyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceBusyExceptionHandlerTest {
+
+    private final ServiceBusyExceptionHandler handler = new ServiceBusyExceptionHandler();
+
+    @Test
+    void handleInternalAuthentication_WrappedEncoderBusy_ReturnsServiceUnavailable() {
+        InternalAuthenticationServiceException e = new InternalAuthenticationServiceException("认证失败",
+                new PasswordEncoderBusyException("密码哈希队列已满"));
+
+        ResponseEntity<Result<Void>> response = handler.handleInternalAuthentication(e);
+
+        // 线程池饱和时应返回 503 并提示重试间隔，而不是 500
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(ResultCode.SERVICE_UNAVAILABLE.getCode(), response.getBody().getCode());
+    }
+
+    @Test
+    void handleInternalAuthentication_OtherCause_Rethrows() {
+        InternalAuthenticationServiceException e = new InternalAuthenticationServiceException("认证失败",
+                new IllegalStateException("数据库不可用"));
+
+        assertSame(e, assertThrows(InternalAuthenticationServiceException.class,
+                () -> handler.handleInternalAuthentication(e)));
+    }
+}
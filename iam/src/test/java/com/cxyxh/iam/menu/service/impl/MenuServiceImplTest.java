@@ -0,0 +1,234 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.menu.service.impl;
+
+import com.cxyxh.iam.menu.dto.MenuTreeDTO;
+import com.cxyxh.iam.menu.entity.Menu;
+import com.cxyxh.iam.menu.mapper.MenuMapper;
+import com.cxyxh.iam.role.service.RolePermissionService;
+import com.cxyxh.iam.user.dto.UserAuthDTO;
+import com.cxyxh.iam.user.entity.User;
+import com.cxyxh.iam.user.service.PermissionVersionService;
+import com.cxyxh.iam.user.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MenuServiceImplTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MenuMapper menuMapper;
+    private UserService userService;
+    private StringRedisTemplate stringRedisTemplate;
+    private RolePermissionService rolePermissionService;
+    private MenuServiceImpl menuService;
+
+    @BeforeEach
+    void setUp() {
+        menuMapper = mock(MenuMapper.class);
+        when(menuMapper.selectVisibleMenus(any(), anyCollection())).thenReturn(List.of(
+                createMenu(1L, 0L, "系统管理", 1),
+                createMenu(2L, 1L, "用户管理", 1),
+                createMenu(3L, 1L, "角色管理", 2),
+                createMenu(4L, 99L, "无权访问的父菜单下的子菜单", 1)));
+
+        userService = mock(UserService.class);
+        when(userService.getUserAuth(1L)).thenReturn(createUserAuth(1L, 100L, 2L, 1L));
+        when(userService.getUserAuth(2L)).thenReturn(createUserAuth(2L, 100L, 1L, 2L));
+        when(userService.getUserAuth(3L)).thenReturn(createUserAuth(3L, 200L, 1L, 2L));
+
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        rolePermissionService = mock(RolePermissionService.class);
+        menuService = new MenuServiceImpl(menuMapper, userService, mock(PermissionVersionService.class),
+                rolePermissionService, stringRedisTemplate, mock(RedisMessageListenerContainer.class), objectMapper,
+                new SimpleMeterRegistry(), 100, 3600, 100, 300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getMenuTree_AssemblesOrderedTree() throws Exception {
+        MenuTreeDTO tree = menuService.getMenuTree(1L);
+
+        JsonNode data = objectMapper.readTree(tree.getBody()).get("data");
+        assertEquals(1, data.size());
+        assertEquals("系统管理", data.get(0).get("menuName").asText());
+        assertEquals(2, data.get(0).get("children").size());
+        assertEquals("用户管理", data.get(0).get("children").get(0).get("menuName").asText());
+        assertTrue(tree.getEtag().startsWith("\""));
+    }
+
+    @Test
+    void getMenuTree_SameRoleSetInTenant_SharesTree() {
+        MenuTreeDTO first = menuService.getMenuTree(1L);
+        MenuTreeDTO second = menuService.getMenuTree(2L);
+
+        assertSame(first, second);
+        verify(menuMapper, times(1)).selectVisibleMenus(eq(100L), anyCollection());
+    }
+
+    @Test
+    void getMenuTree_OtherTenant_BuildsSeparately() {
+        menuService.getMenuTree(1L);
+        menuService.getMenuTree(3L);
+
+        verify(menuMapper).selectVisibleMenus(eq(100L), anyCollection());
+        verify(menuMapper).selectVisibleMenus(eq(200L), anyCollection());
+    }
+
+    @Test
+    void getMenuTree_NoRoles_ReturnsEmptyTreeWithoutQuery() throws Exception {
+        when(userService.getUserAuth(4L)).thenReturn(createUserAuth(4L, 100L));
+
+        MenuTreeDTO tree = menuService.getMenuTree(4L);
+
+        assertEquals(0, objectMapper.readTree(tree.getBody()).get("data").size());
+        verify(menuMapper, never()).selectVisibleMenus(any(), anyCollection());
+    }
+
+    @Test
+    void evictTenant_OnlyClearsThatTenant() {
+        menuService.getMenuTree(1L);
+        menuService.getMenuTree(3L);
+
+        menuService.evictTenant(100L);
+        menuService.getMenuTree(1L);
+        menuService.getMenuTree(3L);
+
+        verify(menuMapper, times(2)).selectVisibleMenus(eq(100L), anyCollection());
+        verify(menuMapper, times(1)).selectVisibleMenus(eq(200L), anyCollection());
+        verify(stringRedisTemplate).convertAndSend(MenuServiceImpl.INVALIDATE_CHANNEL, "100");
+    }
+
+    @Test
+    void onMessage_RemoteEviction_ClearsLocalTrees() {
+        menuService.getMenuTree(3L);
+
+        menuService.onMessage(new DefaultMessage(MenuServiceImpl.INVALIDATE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "200".getBytes(StandardCharsets.UTF_8)), null);
+        menuService.getMenuTree(3L);
+
+        verify(menuMapper, times(2)).selectVisibleMenus(eq(200L), anyCollection());
+    }
+
+    @Test
+    void getMenuTree_EvictedWhileBuilding_DoesNotKeepStaleTree() throws Exception {
+        List<Menu> before = List.of(createMenu(1L, 0L, "系统管理", 1));
+        List<Menu> after = List.of(createMenu(1L, 0L, "系统设置", 1));
+        when(menuMapper.selectVisibleMenus(eq(100L), anyCollection()))
+                .thenAnswer(invocation -> {
+                    // 模拟构建期间另一事务提交了菜单变更
+                    menuService.evictTenant(100L);
+                    return before;
+                })
+                .thenReturn(after);
+
+        MenuTreeDTO tree = menuService.getMenuTree(1L);
+        MenuTreeDTO cached = menuService.getMenuTree(2L);
+
+        assertEquals("系统设置", objectMapper.readTree(tree.getBody()).get("data").get(0).get("menuName").asText());
+        assertSame(tree, cached);
+        verify(menuMapper, times(2)).selectVisibleMenus(eq(100L), anyCollection());
+    }
+
+    @Test
+    void updateMenu_InTransaction_EvictsAfterCommit() {
+        when(menuMapper.selectById(1L)).thenReturn(createMenu(1L, 0L, "系统管理", 1).setTenantId(100L));
+        when(menuMapper.updateById(any(Menu.class))).thenReturn(1);
+        menuService.getMenuTree(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertTrue(menuService.updateMenu(createMenu(1L, 0L, "系统设置", 1)));
+        menuService.getMenuTree(1L);
+
+        // 提交前仍使用原有缓存，避免按未提交的数据重建
+        verify(menuMapper, times(1)).selectVisibleMenus(eq(100L), anyCollection());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        menuService.getMenuTree(1L);
+        verify(menuMapper, times(2)).selectVisibleMenus(eq(100L), anyCollection());
+        verify(stringRedisTemplate).convertAndSend(MenuServiceImpl.INVALIDATE_CHANNEL, "100");
+    }
+
+    @Test
+    void removeMenu_ReloadsLinkedRoles() {
+        when(menuMapper.selectById(2L)).thenReturn(createMenu(2L, 1L, "用户管理", 1).setTenantId(100L));
+        when(menuMapper.deleteById(2L)).thenReturn(1);
+        when(menuMapper.selectRoleIdsByMenuId(2L)).thenReturn(List.of(1L, 2L));
+
+        assertTrue(menuService.removeMenu(2L));
+
+        verify(rolePermissionService).reload(1L);
+        verify(rolePermissionService).reload(2L);
+        verify(stringRedisTemplate).convertAndSend(MenuServiceImpl.INVALIDATE_CHANNEL, "100");
+    }
+
+    @Test
+    void removeMenu_NotFound_ReturnsFalse() {
+        assertFalse(menuService.removeMenu(9L));
+
+        verify(menuMapper, never()).deleteById(anyLong());
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void assignMenus_ReplacesRoleMenusAndEvictsRoleTenant() {
+        when(menuMapper.selectRoleTenantId(1L)).thenReturn(100L);
+        menuService.getMenuTree(1L);
+
+        assertTrue(menuService.assignMenus(1L, List.of(1L, 2L)));
+        menuService.getMenuTree(1L);
+
+        verify(menuMapper).deleteRoleMenus(1L);
+        verify(menuMapper).insertRoleMenus(1L, List.of(1L, 2L));
+        verify(rolePermissionService).reload(1L);
+        verify(menuMapper, times(2)).selectVisibleMenus(eq(100L), anyCollection());
+    }
+
+    private static Menu createMenu(Long id, Long parentId, String name, int orderNum) {
+        return new Menu().setId(id).setParentId(parentId).setMenuName(name).setOrderNum(orderNum);
+    }
+
+    private static UserAuthDTO createUserAuth(Long userId, Long tenantId, Long... roleIds) {
+        User user = new User();
+        user.setId(userId);
+        user.setTenantId(tenantId);
+        UserAuthDTO userAuth = new UserAuthDTO();
+        userAuth.setUserId(userId);
+        userAuth.setUser(user);
+        userAuth.setRoleIds(new ArrayList<>(List.of(roleIds)));
+        return userAuth;
+    }
+}
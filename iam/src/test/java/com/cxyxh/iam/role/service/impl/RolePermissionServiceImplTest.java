@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.role.service.impl;
+
+import com.cxyxh.iam.role.mapper.RolePermissionMapper;
+import com.cxyxh.iam.role.service.RolePermissionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RolePermissionServiceImplTest {
+
+    /**
+     * 模拟 Redis 中的字符串键值
+     */
+    private final Map<String, String> redisValues = new ConcurrentHashMap<>();
+
+    private RolePermissionMapper rolePermissionMapper;
+    private StringRedisTemplate stringRedisTemplate;
+    private RolePermissionServiceImpl rolePermissionService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redisValues.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redisValues.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        rolePermissionMapper = mock(RolePermissionMapper.class);
+        when(rolePermissionMapper.selectPermissionCodes(1L)).thenReturn(List.of("user:list", "user:view"));
+        when(rolePermissionMapper.selectPermissionCodes(2L)).thenReturn(List.of("user:view", "user:update"));
+        when(rolePermissionMapper.selectPermissionCodes(3L)).thenReturn(List.of());
+
+        rolePermissionService = new RolePermissionServiceImpl(rolePermissionMapper, stringRedisTemplate,
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(), 100, 3600);
+    }
+
+    @Test
+    void getPermissionCodes_LoadsOnceAndWritesRedis() {
+        assertEquals(List.of("user:list", "user:view"), rolePermissionService.getPermissionCodes(1L));
+        assertEquals(List.of("user:list", "user:view"), rolePermissionService.getPermissionCodes(1L));
+
+        verify(rolePermissionMapper, times(1)).selectPermissionCodes(1L);
+        assertEquals("user:list,user:view", redisValues.get(RolePermissionService.KEY_PREFIX + 1));
+    }
+
+    @Test
+    void getPermissionCodes_RedisHit_SkipsDatabase() {
+        redisValues.put(RolePermissionService.KEY_PREFIX + 5, "menu:list");
+
+        assertEquals(List.of("menu:list"), rolePermissionService.getPermissionCodes(5L));
+        verify(rolePermissionMapper, never()).selectPermissionCodes(5L);
+    }
+
+    @Test
+    void getPermissionCodes_EmptyRole_IsCached() {
+        assertTrue(rolePermissionService.getPermissionCodes(3L).isEmpty());
+        assertEquals("", redisValues.get(RolePermissionService.KEY_PREFIX + 3));
+
+        assertTrue(rolePermissionService.getPermissionCodes(3L).isEmpty());
+        verify(rolePermissionMapper, times(1)).selectPermissionCodes(3L);
+    }
+
+    @Test
+    void getPermissionCodes_MultipleRoles_ReturnsUnion() {
+        List<String> codes = rolePermissionService.getPermissionCodes(List.of(1L, 2L, 3L));
+
+        assertEquals(3, codes.size());
+        assertTrue(codes.containsAll(List.of("user:list", "user:view", "user:update")));
+    }
+
+    @Test
+    void reload_UpdatesLocalCopyAndBroadcasts() {
+        rolePermissionService.getPermissionCodes(1L);
+        when(rolePermissionMapper.selectPermissionCodes(1L)).thenReturn(List.of("user:list"));
+
+        rolePermissionService.reload(1L);
+
+        assertEquals(List.of("user:list"), rolePermissionService.getPermissionCodes(1L));
+        assertEquals("user:list", redisValues.get(RolePermissionService.KEY_PREFIX + 1));
+        verify(stringRedisTemplate).convertAndSend(RolePermissionServiceImpl.RELOAD_CHANNEL, "1");
+    }
+
+    @Test
+    void reloadAsync_ExpiredKey_RefreshesInBackground() {
+        rolePermissionService.getPermissionCodes(1L);
+        redisValues.remove(RolePermissionService.KEY_PREFIX + 1);
+        when(rolePermissionMapper.selectPermissionCodes(1L)).thenReturn(List.of("user:list"));
+
+        rolePermissionService.reloadAsync(1L);
+
+        verify(rolePermissionMapper, timeout(2000).times(2)).selectPermissionCodes(1L);
+        verify(rolePermissionMapper, never()).selectPermissionCodes(2L);
+    }
+
+    @Test
+    void reloadAsync_UnusedRole_IsIgnored() {
+        rolePermissionService.reloadAsync(2L);
+
+        verify(rolePermissionMapper, after(200).never()).selectPermissionCodes(2L);
+    }
+}
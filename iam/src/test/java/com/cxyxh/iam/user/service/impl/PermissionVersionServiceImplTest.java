@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cxyxh.iam.user.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PermissionVersionServiceImplTest {
+
+    private ValueOperations<String, String> valueOperations;
+    private PermissionVersionServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(valueOperations);
+        service = new PermissionVersionServiceImpl(redis, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void increaseVersion_NoTransaction_IncreasesImmediately() {
+        service.increaseVersion(1L);
+
+        verify(valueOperations).increment("user:permission-version:1");
+    }
+
+    @Test
+    void increaseVersion_InTransaction_DefersUntilCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.increaseVersion(1L);
+
+        // 提交前不应递增，避免其他请求按未提交前的数据重新缓存
+        verify(valueOperations, never()).increment(anyString());
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(valueOperations).increment("user:permission-version:1");
+    }
+
+    @Test
+    void increaseVersion_TransactionRolledBack_DoesNotIncrease() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.increaseVersion(1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(valueOperations, never()).increment(anyString());
+    }
+}
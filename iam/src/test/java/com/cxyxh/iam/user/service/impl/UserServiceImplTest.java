@@ -15,12 +15,20 @@ package com.cxyxh.iam.user.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cxyxh.iam.common.api.CursorPageVO;
+import com.cxyxh.iam.common.api.PageCursor;
+import com.cxyxh.iam.config.security.userdetails.UserDetailsCache;
+import com.cxyxh.iam.role.service.RolePermissionService;
 import com.cxyxh.iam.user.convert.UserConvert;
 import com.cxyxh.iam.user.dto.UserDTO;
 import com.cxyxh.iam.user.entity.User;
 import com.cxyxh.iam.user.mapper.UserMapper;
+import com.cxyxh.iam.user.service.PermissionVersionService;
 import com.cxyxh.iam.user.vo.UserVO;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,7 +38,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -199,4 +209,111 @@ class UserServiceImplTest {
         assertEquals(permissions, result);
         verify(userService).getUserPermissions(USER_ID);
     }
-} 
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pageUserByCursor_SeeksAfterCursorAndReturnsNextCursor() {
+        // 准备：每页2条，返回3条表示还有下一页
+        UserServiceImpl service = createCursorPageService();
+        LocalDateTime cursorTime = LocalDateTime.of(2024, 5, 1, 12, 0);
+        String cursor = new PageCursor(cursorTime, 100L).encode();
+        LocalDateTime lastTime = LocalDateTime.of(2024, 4, 30, 9, 30);
+        ArgumentCaptor<Page<User>> pageCaptor = ArgumentCaptor.forClass(Page.class);
+        ArgumentCaptor<LambdaQueryWrapper<User>> wrapperCaptor = ArgumentCaptor.forClass(LambdaQueryWrapper.class);
+        when(userMapper.selectPage(pageCaptor.capture(), wrapperCaptor.capture())).thenAnswer(invocation -> {
+            Page<User> page = invocation.getArgument(0);
+            page.setRecords(List.of(cursorUser(99L, cursorTime), cursorUser(98L, lastTime), cursorUser(97L, lastTime)));
+            return page;
+        });
+
+        // 执行
+        CursorPageVO<UserVO> result = service.pageUserByCursor(cursor, 2, null, 1, false);
+
+        // 验证只取 size+1 条且不执行 COUNT
+        Page<User> page = pageCaptor.getValue();
+        assertEquals(3, page.getSize());
+        assertEquals(1, page.getCurrent());
+        assertFalse(page.searchCount());
+        verify(userMapper, never()).selectCount(any());
+
+        // 验证按 (create_time, id) 定位在游标之后
+        LambdaQueryWrapper<User> wrapper = wrapperCaptor.getValue();
+        String sql = wrapper.getSqlSegment();
+        assertTrue(sql.matches(".*\\(create_time < #\\{[^}]+} OR \\(create_time = #\\{[^}]+} AND id < #\\{[^}]+}\\)\\).*"), sql);
+        assertTrue(sql.endsWith("ORDER BY create_time DESC,id DESC"), sql);
+        assertTrue(wrapper.getParamNameValuePairs().values().containsAll(List.of(1, cursorTime, 100L)));
+
+        // 验证截断多取的一条，游标指向本页最后一条
+        assertTrue(result.getHasMore());
+        assertNull(result.getTotal());
+        assertEquals(2, result.getRecords().size());
+        PageCursor next = PageCursor.decode(result.getNextCursor());
+        assertEquals(lastTime, next.getCreateTime());
+        assertEquals(98L, next.getId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pageUserByCursor_LastPageWithCount_HasNoNextCursor() {
+        // 准备
+        UserServiceImpl service = createCursorPageService();
+        ArgumentCaptor<LambdaQueryWrapper<User>> wrapperCaptor = ArgumentCaptor.forClass(LambdaQueryWrapper.class);
+        when(userMapper.selectPage(any(Page.class), wrapperCaptor.capture())).thenAnswer(invocation -> {
+            Page<User> page = invocation.getArgument(0);
+            page.setRecords(List.of(cursorUser(1L, LocalDateTime.of(2024, 1, 1, 0, 0))));
+            return page;
+        });
+        when(userMapper.selectCount(any())).thenReturn(1L);
+
+        // 执行：第一页
+        CursorPageVO<UserVO> result = service.pageUserByCursor("", 10, null, null, true);
+
+        // 验证
+        assertFalse(result.getHasMore());
+        assertNull(result.getNextCursor());
+        assertEquals(1L, result.getTotal());
+        assertFalse(wrapperCaptor.getValue().getSqlSegment().contains("create_time <"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pageUserByCursor_HugeSize_IsClamped() {
+        // 准备
+        UserServiceImpl service = createCursorPageService();
+        ArgumentCaptor<Page<User>> pageCaptor = ArgumentCaptor.forClass(Page.class);
+        when(userMapper.selectPage(pageCaptor.capture(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // 执行
+        service.pageUserByCursor(null, Integer.MAX_VALUE, null, null, false);
+
+        // 验证不会溢出为负数而取消 LIMIT
+        assertEquals(501, pageCaptor.getValue().getSize());
+    }
+
+    @Test
+    void pageUserByCursor_MalformedCursor_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> createCursorPageService().pageUserByCursor("not base64!", 10, null, null, false));
+        verifyNoInteractions(userMapper);
+    }
+
+    private UserServiceImpl createCursorPageService() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), User.class);
+        when(userConvert.entityToVO(any(User.class))).thenAnswer(invocation -> {
+            UserVO vo = new UserVO();
+            vo.setId(invocation.<User>getArgument(0).getId());
+            return vo;
+        });
+        UserServiceImpl service = new UserServiceImpl(userConvert, passwordEncoder, mock(PermissionVersionService.class),
+                mock(UserDetailsCache.class), mock(RolePermissionService.class));
+        ReflectionTestUtils.setField(service, "baseMapper", userMapper);
+        return service;
+    }
+
+    private static User cursorUser(Long id, LocalDateTime createTime) {
+        User user = new User();
+        user.setId(id);
+        user.setCreateTime(createTime);
+        return user;
+    }
+}